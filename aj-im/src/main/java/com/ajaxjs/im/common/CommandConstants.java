@@ -8,6 +8,18 @@ public interface CommandConstants {
     int CMD_ROOM_MSG = 11;
     int CMD_HEART = 0;
 
+    /**
+     * 要求服务端发送二进制帧的子协议
+     */
+    String SUBPROTOCOL_BINARY = "im.binary";
+
+    /**
+     * 连接地址中指定帧格式的参数，值为 {@link #FORMAT_BINARY} 时发送二进制帧，否则发送文本帧
+     */
+    String PARAM_FORMAT = "format";
+
+    String FORMAT_BINARY = "binary";
+
     int CommunityCateCom = 1;
 
     /**
@@ -0,0 +1,152 @@
+package com.ajaxjs.im.common;
+
+import java.util.Arrays;
+
+/**
+ * long 元素的哈希集合
+ * <p>
+ * 开放寻址、线性探测，元素直接存放在 long 数组中，不装箱，每个元素约占 16 字节（装载因子不超过 0.5）。
+ * 用于保存群成员的用户 ID。不是线程安全的。
+ */
+public class LongSet {
+    /**
+     * 空槽位，不能作为元素
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+
+    private int size;
+
+    private int mask;
+
+    public LongSet() {
+        this(8);
+    }
+
+    /**
+     * 创建集合
+     *
+     * @param expected 预计的元素个数
+     */
+    public LongSet(int expected) {
+        int capacity = 8;
+
+        while (capacity < expected * 2 && capacity < (1 << 30))
+            capacity <<= 1;
+
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+        if (key == EMPTY)
+            throw new IllegalArgumentException("Unsupported value: " + key);
+
+        int i = mix(key) & mask;
+
+        while (keys[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    /**
+     * 加入元素
+     *
+     * @param key 元素
+     * @return 原来不存在时返回 true
+     */
+    public boolean add(long key) {
+        int i = slot(key);
+
+        if (keys[i] != EMPTY)
+            return false;
+
+        keys[i] = key;
+
+        if (++size * 2 > keys.length)
+            rehash(keys.length * 2);
+
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return keys[slot(key)] != EMPTY;
+    }
+
+    /**
+     * 删除元素。后面同一探测链上的元素往前移，不留墓碑
+     *
+     * @param key 元素
+     * @return 原来存在时返回 true
+     */
+    public boolean remove(long key) {
+        int i = slot(key);
+
+        if (keys[i] == EMPTY)
+            return false;
+
+        size--;
+
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+
+            // home 不在 (i, j] 之间时，j 上的元素可以移到空出来的 i
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                i = j;
+            }
+        }
+
+        keys[i] = EMPTY;
+
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 所有元素，顺序不固定
+     *
+     * @return 元素数组
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int j = 0;
+
+        for (long key : keys) {
+            if (key != EMPTY)
+                result[j++] = key;
+        }
+
+        return result;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+
+        for (long key : old) {
+            if (key != EMPTY)
+                keys[slot(key)] = key;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ajaxjs.im.common;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 在 JDK 21 及以上运行时创建虚拟线程，更早的 JDK 上退回普通的守护线程
+ * <p>
+ * 项目按 Java 8 编译，不能直接引用 Thread.ofVirtual()，这里在类加载时用 MethodHandle 查找一次，之后调用没有反射开销。
+ */
+public class VirtualThreads {
+    /**
+     * Thread.ofVirtual()，不支持时为 null
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /**
+     * Thread.Builder#name(String)
+     */
+    private static final MethodHandle NAME;
+
+    /**
+     * Thread.Builder#unstarted(Runnable)
+     */
+    private static final MethodHandle UNSTARTED;
+
+    static {
+        MethodHandle ofVirtual = null, name = null, unstarted = null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")));
+            name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+            unstarted = lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null; // JDK 21 之前
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建线程但不启动
+     *
+     * @param name    线程名
+     * @param virtual 是否使用虚拟线程，运行时不支持时忽略
+     * @param task    任务
+     * @return 线程
+     */
+    public static Thread newThread(String name, boolean virtual, Runnable task) {
+        if (virtual && OF_VIRTUAL != null) {
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(), name);
+
+                return (Thread) UNSTARTED.invoke(builder, task);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to create virtual thread", e);
+            }
+        }
+
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+
+        return t;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ajaxjs.im.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一条已经编码好的消息，内容不可修改，可以同时放入多个连接的队列
+ * <p>
+ * 群发时所有接收者共用同一个 Frame：发送二进制帧时每个连接只取一个共享内容的 {@link ByteBuffer} 视图，
+ * 发送文本帧时所有连接共用一个 String，都不会为每个接收者复制一份。
+ * 字节和文本只有一种是创建时给出的，另一种在第一次需要时转换一次（UTF-8），只有文本客户端的群不会编码成字节。
+ * <p>
+ * 用引用计数管理生命周期：创建时计数为 1，每放入一个队列 {@link #retain()} 一次，发送或丢弃后 {@link #release()} 一次，
+ * 计数归零时执行释放回调，例如把池化的直接内存还回池中。
+ */
+public final class Frame {
+    /**
+     * 只读的内容，第一次需要时编码
+     */
+    private volatile ByteBuffer buffer;
+
+    private final Runnable onRelease;
+
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+
+    /**
+     * 文本形式，第一次需要时解码
+     */
+    private volatile String text;
+
+    private Frame(ByteBuffer buffer, String text, Runnable onRelease) {
+        this.buffer = buffer == null ? null : buffer.asReadOnlyBuffer();
+        this.text = text;
+        this.onRelease = onRelease;
+    }
+
+    /**
+     * 包装已经序列化好的消息，不复制
+     *
+     * @param data 消息，之后不能再修改
+     * @return 消息帧
+     */
+    public static Frame of(byte[] data) {
+        return new Frame(ByteBuffer.wrap(data), null, null);
+    }
+
+    /**
+     * 包装缓冲区中 position 到 limit 之间的内容，不复制
+     *
+     * @param buffer    缓冲区，之后不能再修改
+     * @param onRelease 引用计数归零时执行，可以为 null
+     * @return 消息帧
+     */
+    public static Frame of(ByteBuffer buffer, Runnable onRelease) {
+        return new Frame(buffer.slice(), null, onRelease);
+    }
+
+    /**
+     * 包装收到的文本，不复制；只有发给二进制客户端时才按 UTF-8 编码一次
+     *
+     * @param text 文本
+     * @return 消息帧
+     */
+    public static Frame ofText(String text) {
+        return new Frame(null, text, null);
+    }
+
+    /**
+     * 消息内容的只读视图，与其他视图共享内容，各自有独立的读取位置
+     *
+     * @return 缓冲区
+     */
+    public ByteBuffer payload() {
+        return bytes().duplicate();
+    }
+
+    private ByteBuffer bytes() {
+        ByteBuffer b = buffer;
+
+        if (b == null) // 多个线程同时编码时结果相同，保留哪一个都可以
+            buffer = b = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+
+        return b;
+    }
+
+    /**
+     * 按 UTF-8 解码的文本，所有接收者共用一个 String
+     *
+     * @return 文本
+     */
+    public String text() {
+        String s = text;
+
+        if (s == null)
+            text = s = StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+
+        return s;
+    }
+
+    /**
+     * 字节数
+     *
+     * @return 字节数
+     */
+    public int size() {
+        return bytes().remaining();
+    }
+
+    /**
+     * 增加一个引用
+     *
+     * @return 当前对象
+     */
+    public Frame retain() {
+        for (; ; ) {
+            int n = refCnt.get();
+
+            if (n <= 0)
+                throw new IllegalStateException("Frame already released");
+
+            if (refCnt.compareAndSet(n, n + 1))
+                return this;
+        }
+    }
+
+    /**
+     * 释放一个引用
+     *
+     * @return 计数是否归零
+     */
+    public boolean release() {
+        int n = refCnt.decrementAndGet();
+
+        if (n < 0)
+            throw new IllegalStateException("Frame already released");
+
+        if (n == 0 && onRelease != null)
+            onRelease.run();
+
+        return n == 0;
+    }
+
+    public int refCnt() {
+        return refCnt.get();
+    }
+}
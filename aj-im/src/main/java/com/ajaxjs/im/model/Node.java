@@ -2,10 +2,10 @@ package com.ajaxjs.im.model;
 
 import lombok.Data;
 import javax.websocket.*;
-import java.util.Set;
+import java.io.Closeable;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *
@@ -15,14 +15,37 @@ public class Node {
     private Session conn;
 
     /**
-     *  阻塞队列
+     *  阻塞队列，群发时同一个 Frame 会出现在多个连接的队列中
      */
-    private BlockingQueue<byte[]> dataQueue;
-    private Set<Object> groupSets;
+    private BlockingQueue<Frame> dataQueue;
+
+    /**
+     * 是否已经交给投递引擎发送，保证同一时刻只有一个线程在发送这个连接的消息
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * 虚拟线程模式下收、发线程所在的作用域，关闭它即断开连接
+     */
+    private volatile Closeable scope;
+
+    /**
+     * 登记时分配的代号，同一用户每次重连都不同
+     */
+    private volatile long generation;
+
+    /**
+     * 已被新连接替换或已注销，不应再往这里投递消息
+     */
+    private volatile boolean retired;
+
+    /**
+     * 客户端接收二进制帧，否则发送文本帧。连接建立时按握手的子协议或连接参数设置
+     */
+    private volatile boolean binary;
 
     public Node(Session conn) {
         this.conn = conn;
         this.dataQueue = new LinkedBlockingQueue<>(50);
-        this.groupSets = ConcurrentHashMap.newKeySet();
     }
 }
@@ -2,118 +2,342 @@ package com.ajaxjs.im.service;
 
 
 import com.ajaxjs.im.common.CommandConstants;
+import com.ajaxjs.im.common.VirtualThreads;
+import com.ajaxjs.im.model.Frame;
 import com.ajaxjs.im.model.Message;
 import com.ajaxjs.im.model.Node;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import javax.websocket.*;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Service
 @Slf4j
 public class ChatService {
     /**
-     * 用户和 Node 映射关系表
+     * 用户和 Node 映射关系表，查找不加锁
      */
-    private Map<Long, Node> clientMap = new ConcurrentHashMap<>();
+    private final SessionRegistry registry = new SessionRegistry();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * 群 ID 到成员的索引
+     */
+    private final GroupIndex groups = new GroupIndex();
+
+    /**
+     * 成员数超过这个值的群，群发时拆成多批并行入队
+     */
+    private static final int FANOUT_BATCH = 1024;
+
+    /**
+     * 虚拟线程模式下每个连接收件箱的容量
+     */
+    private static final int INBOX_CAPACITY = 64;
+
+    /**
+     * 所有连接共用的投递引擎
+     */
+    private final DeliveryEngine delivery = new DeliveryEngine();
+
+    /**
+     * 是否为每个连接用虚拟线程运行阻塞的收、发循环，需要 JDK 21 及以上，否则退回普通线程
+     */
+    private volatile boolean virtualThreads;
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        if (virtualThreads && !VirtualThreads.isSupported())
+            log.warn("Virtual threads are not supported by this JVM, platform threads will be used");
+
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 连接建立后登记用户并开始收发消息
+     *
+     * @param userId 用户 ID
+     * @param node   连接
+     */
+    public void open(long userId, Node node) {
+        if (prefersBinary(node.getConn()))
+            node.setBinary(true);
+
+        if (virtualThreads) // 由连接自己的发送线程取队列，标记一直保持为已调度，投递引擎就不会再调度它
+            node.getScheduled().set(true);
+
+        Node old = registry.register(userId, node);
+
+        if (old != null) { // 重连：旧连接还没发出的消息转给新连接，然后关闭旧连接
+            Frame frame;
+
+            while ((frame = old.getDataQueue().poll()) != null) {
+                delivery.enqueue(node, frame);
+                frame.release();
+            }
+
+            closeNode(old);
+        }
+
+        if (virtualThreads) {
+            ConnectionScope scope = new ConnectionScope(node.getConn(), true, () -> { // 任一线程结束都会关闭作用域，未发出的消息随之释放
+                registry.unregister(userId, node);
+                DeliveryEngine.discard(node);
+            });
+            node.setScope(scope);
+            BlockingQueue<String> inbox = new ArrayBlockingQueue<>(INBOX_CAPACITY);
+            // 在 open() 里同步注册回调，接收线程启动之前到达的消息也会进入收件箱
+            node.getConn().addMessageHandler(String.class, data -> {
+                try {
+                    while (!inbox.offer(data, 1, TimeUnit.SECONDS)) {
+                        if (scope.isClosed()) // 接收线程已经结束，不会再有人取
+                            return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            scope.fork("im-recv-" + userId, () -> recvProc(inbox));
+            scope.fork("im-send-" + userId, () -> sendLoop(node));
+        } else {
+            node.getConn().addMessageHandler(String.class, this::dispatch);
+            sendProc(node);
+        }
+    }
+
+    /**
+     * 断开用户当前的连接；虚拟线程模式下同时结束收、发两个线程
+     *
+     * @param userId 用户 ID
+     */
+    public void close(long userId) {
+        Node node = registry.unregister(userId);
+
+        if (node != null)
+            closeNode(node);
+    }
+
+    /**
+     * 某个连接断开的通知。用户已经用新连接替换了它时，不影响新连接
+     *
+     * @param userId 用户 ID
+     * @param node   断开的连接
+     */
+    public void close(long userId, Node node) {
+        registry.unregister(userId, node);
+        closeNode(node);
+    }
+
+    private void closeNode(Node node) {
+        try {
+            if (node.getScope() != null)
+                node.getScope().close();
+            else if (node.getConn().isOpen())
+                node.getConn().close();
+        } catch (IOException e) {
+            log.warn("Error closing connection", e);
+        }
+
+        DeliveryEngine.discard(node);
+    }
 
-    // 读写锁
     /**
-     * 读写锁
+     * 客户端是否要求接收二进制帧：握手时协商的子协议为 {@link CommandConstants#SUBPROTOCOL_BINARY}，
+     * 或者连接地址带有参数 format=binary
+     *
+     * @param conn 连接
+     * @return 是否发送二进制帧
      */
-    private ReentrantReadWriteLock rwLocker = new ReentrantReadWriteLock();
+    static boolean prefersBinary(Session conn) {
+        if (CommandConstants.SUBPROTOCOL_BINARY.equals(conn.getNegotiatedSubprotocol()))
+            return true;
+
+        Map<String, List<String>> params = conn.getRequestParameterMap();
+        List<String> format = params == null ? null : params.get(CommandConstants.PARAM_FORMAT);
+
+        return format != null && format.contains(CommandConstants.FORMAT_BINARY);
+    }
+
+    public SessionRegistry getRegistry() {
+        return registry;
+    }
 
     // 后端调度逻辑处理
+    // 只为路由反序列化一次，转发的仍是收到的原始文本，包装成 Frame 后所有接收者共用，文本客户端直接发送这个 String
+    public void dispatch(String data) {
+        Frame frame = Frame.ofText(data);
+
+        try {
+            route(mapper.readValue(data, Message.class), frame);
+        } catch (IOException e) {
+            log.error("Error deserializing message", e);
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * 分发已经是字节形式的消息，转发的是这些字节本身
+     *
+     * @param data UTF-8 编码的消息，之后不能再修改
+     */
     public void dispatch(byte[] data) {
-//        ObjectMapper mapper = new ObjectMapper();
+        Frame frame = Frame.of(data);
 
         try {
-            Message msg = mapper.readValue(data, Message.class);
-            switch (msg.getCmd()) {
-                case CommandConstants.CMD_SINGLE_MSG:
-                    sendMsg(msg.getDstid(), data);
-                    break;
-                case CommandConstants.CMD_ROOM_MSG:
-                    // 遍历clientMap并发送消息
-                    break;
-                case CommandConstants.CMD_HEART:
-                    // 检测客户端的心跳
-                    break;
-            }
+            route(mapper.readValue(data, Message.class), frame);
         } catch (IOException e) {
             log.error("Error deserializing message", e);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private void route(Message msg, Frame frame) {
+        switch (msg.getCmd()) {
+            case CommandConstants.CMD_SINGLE_MSG:
+                sendMsg(msg.getDstid(), frame);
+                break;
+            case CommandConstants.CMD_ROOM_MSG:
+                sendGroupMsg(msg.getDstid(), msg.getUserid(), frame);
+                break;
+            case CommandConstants.CMD_HEART:
+                // 检测客户端的心跳
+                break;
         }
     }
 
     /**
-     * 添加新的群ID到用户的 groupset 中
+     * 用户加入群。群成员关系只记在群索引中，与用户是否在线、重连了几次无关
+     *
+     * @param userId
+     * @param gid
+     */
+    public void addGroupId(long userId, long gid) {
+        groups.join(gid, userId);
+    }
+
+    /**
+     * 用户退出群
      *
      * @param userId
      * @param gid
      */
-    public void addGroupId(Long userId, Long gid) {
-        rwLocker.writeLock().lock();
+    public void removeGroupId(long userId, long gid) {
+        groups.leave(gid, userId);
+    }
+
+    /**
+     * 群发消息：同一份消息放入每个在线成员的队列，发送者自己除外
+     *
+     * @param gid      群ID
+     * @param senderId 发送者
+     * @param msg      已经序列化好的消息，所有成员共用，不能再修改
+     * @return 入队的成员数
+     */
+    public int sendGroupMsg(long gid, long senderId, byte[] msg) {
+        Frame frame = Frame.of(msg);
 
         try {
-            Node node = clientMap.get(userId);
-            if (node != null)
-                node.getGroupSets().add(gid);
+            return sendGroupMsg(gid, senderId, frame);
         } finally {
-            rwLocker.writeLock().unlock();
+            frame.release();
+        }
+    }
+
+    /**
+     * 群发消息，所有成员的队列中放的是同一个 Frame
+     *
+     * @param gid      群ID
+     * @param senderId 发送者
+     * @param msg      消息，调用者仍持有自己的引用
+     * @return 入队的成员数
+     */
+    public int sendGroupMsg(long gid, long senderId, Frame msg) {
+        long[] members = groups.members(gid);
+
+        if (members.length <= FANOUT_BATCH)
+            return fanOut(members, 0, members.length, senderId, msg);
+
+        return ForkJoinPool.commonPool().invoke(new FanOut(members, 0, members.length, senderId, msg));
+    }
+
+    private int fanOut(long[] members, int from, int to, long senderId, Frame msg) {
+        int sent = 0;
+
+        for (int i = from; i < to; i++) {
+            if (members[i] != senderId && sendMsg(members[i], msg))
+                sent++;
         }
+
+        return sent;
     }
 
     /**
      * 发送逻辑
+     * 不再为每个连接创建线程，由投递引擎在队列非空时调度发送；这里只发出连接建立之前已经排队的消息
      *
      * @param node
      */
     public void sendProc(Node node) {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        delivery.schedule(node);
+    }
 
-        executorService.submit(() -> {
+    /**
+     * 虚拟线程模式的发送逻辑：阻塞等待队列中的消息，发送失败即结束，作用域随之关闭连接
+     *
+     * @param node
+     */
+    private void sendLoop(Node node) {
+        try {
             while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    byte[] data = node.getDataQueue().poll(1, TimeUnit.SECONDS);
+                Frame frame = node.getDataQueue().take();
 
-                    if (data != null)
-                        node.getConn().getBasicRemote().sendText(new String(data));
-                } catch (IOException | InterruptedException e) {
-                    log.error("Error sending message", e);
+                try {
+                    DeliveryEngine.send(node, frame);
+                } finally {
+                    frame.release();
                 }
             }
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // 作用域已关闭
+        } catch (IOException e) {
+            log.warn("Error sending message, closing connection", e);
+        }
     }
 
     /**
-     * 接收逻辑
-     * 需要使用 Java WebSocket API 处理接收逻辑
+     * 接收逻辑，阻塞直到连接断开
+     * Java WebSocket API 以回调的方式交付消息，回调只把消息放入收件箱，由当前线程逐条取出分发。
+     * 收件箱有容量上限，满了之后回调阻塞，容器暂停读取这个连接，发得太快的客户端被限速，而不是占用越来越多的内存
      *
-     * @param node
+     * @param inbox 收件箱，由 open() 创建并注册回调
      */
-    public void recvProc(Node node) {
-        Session session = node.getConn();
-
-        while (true) {
-            try {
-                // 接收消息
-                String data = session.getBasicRemote().receiveText();
+    public void recvProc(BlockingQueue<String> inbox) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                String data = inbox.take();
                 // 分发消息处理
                 dispatch(data);
-                // 进一步处理接收到的数据
-                System.out.printf("recv<=%s", data);
-            } catch (IOException e) {
-                // 打印异常信息
-                e.printStackTrace();
-                break; // 如果出现异常，退出循环
+                log.debug("recv<={}", data);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // 连接断开
         }
     }
 
@@ -122,17 +346,44 @@ public class ChatService {
      *
      * @param userId
      * @param msg
+     * @return 用户不在线或队列已满时返回 false
      */
-    public void sendMsg(Long userId, byte[] msg) {
-        rwLocker.readLock().lock();
+    public boolean sendMsg(long userId, byte[] msg) {
+        Frame frame = Frame.of(msg);
 
         try {
-            Node node = clientMap.get(userId);
-            if (node != null)
-                node.getDataQueue().offer(msg);
+            return sendMsg(userId, frame);
         } finally {
-            rwLocker.readLock().unlock();
+            frame.release();
+        }
+    }
+
+    /**
+     * 发送消息,发送到消息的管道
+     *
+     * @param userId
+     * @param msg    消息，调用者仍持有自己的引用
+     * @return 用户不在线或队列已满时返回 false
+     */
+    public boolean sendMsg(long userId, Frame msg) {
+        Node node = registry.lookup(userId);
+
+        if (node == null || !delivery.enqueue(node, msg))
+            return false;
+
+        // 入队的同时用户重连了：旧连接的队列已经转给新连接，如果这条消息没赶上转移，就从旧队列取回补发到新连接
+        if (node.isRetired() && node.getDataQueue().remove(msg)) {
+            msg.release(); // 旧队列持有的引用
+
+            return sendMsg(userId, msg);
         }
+
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delivery.close();
     }
 
     /**
@@ -146,4 +397,42 @@ public class ChatService {
         // 需要实现UserService和Find方法
         return false;
     }
+
+    /**
+     * 大群的群发，按 {@link #FANOUT_BATCH} 拆分
+     */
+    private class FanOut extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] members;
+
+        private final int from;
+
+        private final int to;
+
+        private final long senderId;
+
+        private final Frame msg;
+
+        FanOut(long[] members, int from, int to, long senderId, Frame msg) {
+            this.members = members;
+            this.from = from;
+            this.to = to;
+            this.senderId = senderId;
+            this.msg = msg;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= FANOUT_BATCH)
+                return fanOut(members, from, to, senderId, msg);
+
+            int mid = (from + to) >>> 1;
+            FanOut left = new FanOut(members, from, mid, senderId, msg);
+            left.fork();
+            int right = new FanOut(members, mid, to, senderId, msg).compute();
+
+            return left.join() + right;
+        }
+    }
 }
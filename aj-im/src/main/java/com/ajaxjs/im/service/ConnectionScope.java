@@ -0,0 +1,113 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.common.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.websocket.Session;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 一个连接的收、发两个线程的作用域
+ * <p>
+ * 任何一个线程结束（连接断开、发送失败或被中断），整个作用域随之关闭：中断其余的线程、关闭连接、执行清理回调。
+ * 这样断线时收、发两半总是一起拆掉，不会留下孤立的线程。线程默认是虚拟线程，阻塞时只占用几 KB 内存。
+ */
+@Slf4j
+public class ConnectionScope implements Closeable {
+    private final Session conn;
+
+    private final boolean virtual;
+
+    private final Runnable onClose;
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    /**
+     * 由 this 保护：fork 的检查与启动、close 的状态切换互斥，关闭之后不会再有线程启动
+     */
+    private volatile boolean closed;
+
+    /**
+     * 创建作用域
+     *
+     * @param conn    连接
+     * @param virtual 是否使用虚拟线程
+     * @param onClose 关闭时执行的清理，例如从用户表中移除
+     */
+    public ConnectionScope(Session conn, boolean virtual, Runnable onClose) {
+        this.conn = conn;
+        this.virtual = virtual;
+        this.onClose = onClose;
+    }
+
+    /**
+     * 在作用域中启动一个线程，它结束时关闭整个作用域
+     *
+     * @param name 线程名
+     * @param task 任务，阻塞等待时应当响应中断
+     */
+    public void fork(String name, Runnable task) {
+        Thread t = VirtualThreads.newThread(name, virtual, () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Connection task " + name + " failed", e);
+            } finally {
+                close();
+            }
+        });
+
+        synchronized (this) {
+            if (closed) // 已经关闭的作用域不再启动新线程
+                return;
+
+            t.start(); // 先启动再登记，close() 看到的线程都已启动，中断不会丢失
+            threads.add(t);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭作用域，可以重复调用
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+        }
+
+        for (Thread t : threads) {
+            if (t != Thread.currentThread())
+                t.interrupt();
+        }
+
+        try {
+            if (conn.isOpen())
+                conn.close();
+        } catch (IOException e) {
+            log.warn("Error closing connection", e);
+        }
+
+        if (onClose != null)
+            onClose.run();
+    }
+
+    /**
+     * 等待所有线程结束
+     *
+     * @throws InterruptedException 等待时被中断
+     */
+    public void join() throws InterruptedException {
+        for (Thread t : threads) // 只登记已经启动的线程
+            t.join();
+    }
+}
@@ -0,0 +1,169 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.model.Frame;
+import com.ajaxjs.im.model.Node;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.websocket.RemoteEndpoint;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 消息投递引擎
+ * <p>
+ * 所有连接共用固定数量的工作线程，线程数与 CPU 核数相关，与连接数无关。
+ * 某个 Node 的队列由空变为非空时才把它交给工作线程，工作线程一次最多发送 {@link #BATCH} 条，发完还有剩余就重新排队，
+ * 让其他连接也能轮到。没有消息的连接不占用线程，也不会被定时唤醒。
+ * 同一时刻一个 Node 最多只有一个工作线程在发送，同一连接的消息顺序不变。
+ */
+@Slf4j
+public class DeliveryEngine {
+    /**
+     * 一个 Node 每次被调度时最多发送的消息数
+     */
+    private static final int BATCH = 64;
+
+    private final ExecutorService workers;
+
+    /**
+     * 创建投递引擎，发送是阻塞 I/O，线程数取 CPU 核数的两倍
+     */
+    public DeliveryEngine() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * 创建投递引擎
+     *
+     * @param workerCount 工作线程数
+     */
+    public DeliveryEngine(int workerCount) {
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "im-delivery-" + n.incrementAndGet());
+            t.setDaemon(true);
+
+            return t;
+        };
+
+        workers = Executors.newFixedThreadPool(workerCount, factory);
+    }
+
+    /**
+     * 把消息放入 Node 的队列，必要时调度发送。入队时增加消息的引用，发送后释放
+     *
+     * @param node  接收者
+     * @param frame 消息
+     * @return 队列已满时返回 false，消息没有入队
+     */
+    public boolean enqueue(Node node, Frame frame) {
+        frame.retain();
+
+        if (!node.getDataQueue().offer(frame)) {
+            frame.release();
+            return false;
+        }
+
+        schedule(node);
+
+        return true;
+    }
+
+    /**
+     * 队列中有消息而 Node 还没有被调度时，交给工作线程发送
+     *
+     * @param node 接收者
+     */
+    public void schedule(Node node) {
+        if (!node.getDataQueue().isEmpty() && node.getScheduled().compareAndSet(false, true))
+            submit(node);
+    }
+
+    private void submit(Node node) {
+        try {
+            workers.execute(() -> drain(node));
+        } catch (RejectedExecutionException e) { // 已关闭
+            node.getScheduled().set(false);
+        }
+    }
+
+    private void drain(Node node) {
+        int sent = 0;
+
+        try {
+            Frame frame;
+
+            while (sent < BATCH && (frame = node.getDataQueue().poll()) != null) {
+                sent++;
+
+                try {
+                    if (!node.getConn().isOpen()) { // 连接已断开，剩下的消息都不用发了
+                        discard(node);
+                        break;
+                    }
+
+                    send(node, frame);
+                } catch (IOException | RuntimeException e) { // 例如检查之后连接才关闭，容器抛出 IllegalStateException
+                    log.error("Error sending message", e);
+                } finally {
+                    frame.release();
+                }
+            }
+        } finally { // 无论如何都要交还调度标记，否则这个连接再也不会被调度
+            if (sent == BATCH && !node.getDataQueue().isEmpty())
+                submit(node); // 仍保持已调度的状态，排到其他连接后面
+            else {
+                node.getScheduled().set(false);
+                schedule(node); // 清除标记之前可能又有新消息入队
+            }
+        }
+    }
+
+    /**
+     * 发送一条消息，不复制消息内容
+     *
+     * @param node  接收者
+     * @param frame 消息
+     * @throws IOException 发送失败
+     */
+    static void send(Node node, Frame frame) throws IOException {
+        RemoteEndpoint.Basic remote = node.getConn().getBasicRemote();
+
+        if (node.isBinary())
+            remote.sendBinary(frame.payload());
+        else
+            remote.sendText(frame.text());
+    }
+
+    /**
+     * 丢弃队列中的所有消息
+     *
+     * @param node 连接
+     */
+    static void discard(Node node) {
+        Frame frame;
+
+        while ((frame = node.getDataQueue().poll()) != null)
+            frame.release();
+    }
+
+    /**
+     * 停止接受新的发送任务，等待正在进行的发送完成
+     */
+    public void close() {
+        workers.shutdown();
+
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS))
+                workers.shutdownNow();
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
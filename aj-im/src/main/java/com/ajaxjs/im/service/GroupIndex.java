@@ -0,0 +1,136 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.common.LongSet;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 群 ID 到成员用户 ID 的倒排索引
+ * <p>
+ * 成员保存在 {@link LongSet} 中，不装箱。群发时读取成员的快照数组，快照在成员变动后第一次群发时重建一次，
+ * 之后的群发直接复用，不加锁也不复制。成员关系按用户记录，与用户是否在线、重连了几次无关。
+ */
+public class GroupIndex {
+    private static final long[] NONE = new long[0];
+
+    private final ConcurrentHashMap<Long, Members> groups = new ConcurrentHashMap<>();
+
+    /**
+     * 加入群
+     *
+     * @param gid    群 ID
+     * @param userId 用户 ID
+     * @return 原来不是成员时返回 true
+     */
+    public boolean join(long gid, long userId) {
+        boolean[] added = new boolean[1];
+
+        groups.compute(gid, (k, m) -> {
+            if (m == null)
+                m = new Members();
+
+            added[0] = m.add(userId);
+
+            return m;
+        });
+
+        return added[0];
+    }
+
+    /**
+     * 退出群，最后一个成员退出后删除该群
+     *
+     * @param gid    群 ID
+     * @param userId 用户 ID
+     * @return 原来是成员时返回 true
+     */
+    public boolean leave(long gid, long userId) {
+        boolean[] removed = new boolean[1];
+
+        groups.computeIfPresent(gid, (k, m) -> {
+            removed[0] = m.remove(userId);
+
+            return m.isEmpty() ? null : m;
+        });
+
+        return removed[0];
+    }
+
+    /**
+     * 群成员的快照
+     *
+     * @param gid 群 ID
+     * @return 成员的用户 ID，顺序不固定；调用者不能修改这个数组
+     */
+    public long[] members(long gid) {
+        Members m = groups.get(gid);
+
+        return m == null ? NONE : m.snapshot();
+    }
+
+    public boolean isMember(long gid, long userId) {
+        Members m = groups.get(gid);
+
+        return m != null && m.contains(userId);
+    }
+
+    /**
+     * 群的数量
+     *
+     * @return 数量
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * 一个群的成员，写操作很少，读操作（群发）很多
+     */
+    private static class Members {
+        private final LongSet set = new LongSet();
+
+        /**
+         * 成员变动后置为 null，下次读取时重建
+         */
+        private volatile long[] snapshot;
+
+        synchronized boolean add(long userId) {
+            if (!set.add(userId))
+                return false;
+
+            snapshot = null;
+
+            return true;
+        }
+
+        synchronized boolean remove(long userId) {
+            if (!set.remove(userId))
+                return false;
+
+            snapshot = null;
+
+            return true;
+        }
+
+        synchronized boolean contains(long userId) {
+            return set.contains(userId);
+        }
+
+        synchronized boolean isEmpty() {
+            return set.isEmpty();
+        }
+
+        long[] snapshot() {
+            long[] s = snapshot;
+
+            if (s == null) {
+                synchronized (this) {
+                    if ((s = snapshot) == null)
+                        snapshot = s = set.toArray();
+                }
+            }
+
+            return s;
+        }
+    }
+}
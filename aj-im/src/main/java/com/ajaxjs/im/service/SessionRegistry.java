@@ -0,0 +1,153 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.model.Node;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在线用户表：用户 ID 到当前连接的映射
+ * <p>
+ * 基于 {@link ConcurrentHashMap}，查找不加锁，登记和注销只锁住该用户所在的桶，不同用户之间互不阻塞。
+ * 每个连接登记时分配一个递增的代号（generation）。同一用户重连时新连接原子地替换旧连接，旧连接被标记为已退役；
+ * 注销必须指明是哪一个连接，旧连接迟到的断线通知不会把新连接移除。
+ * 在线人数单独计数，读取是 O(1) 的。
+ */
+public class SessionRegistry {
+    private final ConcurrentHashMap<Long, Node> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong generations = new AtomicLong();
+
+    private final AtomicInteger online = new AtomicInteger();
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder replaced = new LongAdder();
+
+    /**
+     * 登记连接，替换该用户原有的连接
+     *
+     * @param userId 用户 ID
+     * @param node   新连接
+     * @return 被替换的旧连接，已标记为退役，由调用者关闭；没有时返回 null
+     */
+    public Node register(long userId, Node node) {
+        node.setGeneration(generations.incrementAndGet());
+        Node old = sessions.put(userId, node);
+
+        if (old == null)
+            online.incrementAndGet();
+        else {
+            old.setRetired(true);
+            replaced.increment();
+        }
+
+        return old;
+    }
+
+    /**
+     * 注销连接。该用户当前的连接已经是别的连接时什么也不做
+     * 按登记时分配的代号比较，而不是 Node 的 equals()：Node 的 equals() 比较的是字段值，两个连接可能相等
+     *
+     * @param userId 用户 ID
+     * @param node   要注销的连接
+     * @return 是否注销了
+     */
+    public boolean unregister(long userId, Node node) {
+        long generation = node.getGeneration();
+        boolean[] removed = new boolean[1];
+        sessions.computeIfPresent(userId, (k, cur) -> {
+            if (cur.getGeneration() != generation)
+                return cur;
+
+            removed[0] = true;
+            return null;
+        });
+
+        if (!removed[0])
+            return false;
+
+        node.setRetired(true);
+        online.decrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * 注销用户当前的连接，不论是哪一个
+     *
+     * @param userId 用户 ID
+     * @return 被注销的连接，没有时返回 null
+     */
+    public Node unregister(long userId) {
+        Node node = sessions.remove(userId);
+
+        if (node != null) {
+            node.setRetired(true);
+            online.decrementAndGet();
+        }
+
+        return node;
+    }
+
+    /**
+     * 查找用户当前的连接
+     *
+     * @param userId 用户 ID
+     * @return 连接，不在线时返回 null
+     */
+    public Node lookup(long userId) {
+        lookups.increment();
+        Node node = sessions.get(userId);
+
+        if (node == null)
+            misses.increment();
+
+        return node;
+    }
+
+    /**
+     * 在线人数
+     *
+     * @return 人数
+     */
+    public int getOnlineCount() {
+        return online.get();
+    }
+
+    /**
+     * 查找的总次数
+     *
+     * @return 次数
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * 查找时用户不在线的次数
+     *
+     * @return 次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 重连替换旧连接的次数
+     *
+     * @return 次数
+     */
+    public long getReplacedCount() {
+        return replaced.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionRegistry{online=" + online.get() + ", lookups=" + lookups.sum() + ", misses=" + misses.sum() + ", replaced=" + replaced.sum() + '}';
+    }
+}
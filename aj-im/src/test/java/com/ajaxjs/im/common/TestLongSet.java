@@ -0,0 +1,82 @@
+package com.ajaxjs.im.common;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestLongSet {
+    /**
+     * 找出落在指定槽位的若干个元素
+     */
+    private static long[] keysAt(int home, int mask, int count, long from) {
+        long[] keys = new long[count];
+
+        for (long k = from, n = 0; n < count; k++) {
+            if ((LongSet.mix(k) & mask) == home)
+                keys[(int) n++] = k;
+        }
+
+        return keys;
+    }
+
+    @Test
+    public void testRemoveWrapped() {
+        LongSet set = new LongSet(4); // 8 个槽位，放 4 个元素不会扩容
+        long[] last = keysAt(7, 7, 3, 1); // 都落在最后一个槽位，依次占用 7、0、1
+        long first = keysAt(0, 7, 1, 1)[0]; // 落在 0 号槽位，被挤到 2
+
+        for (long k : last)
+            assertTrue(set.add(k));
+
+        assertTrue(set.add(first));
+        assertFalse(set.add(first));
+        assertEquals(4, set.size());
+
+        // 删除 7 号槽位上的元素，后面跨过数组末尾的探测链要整体前移
+        assertTrue(set.remove(last[0]));
+        assertFalse(set.contains(last[0]));
+        assertTrue(set.contains(last[1]));
+        assertTrue(set.contains(last[2]));
+        assertTrue(set.contains(first));
+
+        // 删除链中间的元素
+        assertTrue(set.remove(last[2]));
+        assertTrue(set.contains(last[1]));
+        assertTrue(set.contains(first));
+        assertFalse(set.remove(last[2]));
+
+        long[] rest = set.toArray();
+        Arrays.sort(rest);
+        long[] expected = {last[1], first};
+        Arrays.sort(expected);
+        assertArrayEquals(expected, rest);
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(3);
+        LongSet set = new LongSet();
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 100000; i++) {
+            long k = random.nextInt(2000) - 1000L; // 范围小，元素反复加入、删除
+
+            if (random.nextBoolean())
+                assertEquals(expected.add(k), set.add(k));
+            else
+                assertEquals(expected.remove(k), set.remove(k));
+        }
+
+        assertEquals(expected.size(), set.size());
+
+        for (long k = -1000; k < 1000; k++)
+            assertEquals(expected.contains(k), set.contains(k));
+
+        assertEquals(expected.size(), set.toArray().length);
+    }
+}
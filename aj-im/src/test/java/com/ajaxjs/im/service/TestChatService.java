@@ -0,0 +1,111 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.common.CommandConstants;
+import com.ajaxjs.im.model.Frame;
+import com.ajaxjs.im.model.Node;
+import org.junit.Test;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TestChatService {
+    /**
+     * 记录收到的帧的客户端
+     */
+    private static class Client {
+        final ConcurrentLinkedQueue<Object> received = new ConcurrentLinkedQueue<>();
+
+        final Session session;
+
+        Client(String subprotocol, Map<String, List<String>> params, CountDownLatch latch) {
+            RemoteEndpoint.Basic remote = (RemoteEndpoint.Basic) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.Basic.class}, (p, m, args) -> {
+                if (m.getName().equals("sendText") || m.getName().equals("sendBinary")) {
+                    received.add(args[0]);
+                    latch.countDown();
+                }
+
+                return null;
+            });
+
+            session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class}, (p, m, args) -> {
+                switch (m.getName()) {
+                    case "isOpen":
+                        return true;
+                    case "getBasicRemote":
+                        return remote;
+                    case "getNegotiatedSubprotocol":
+                        return subprotocol;
+                    case "getRequestParameterMap":
+                        return params;
+                    default:
+                        return null;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testTextAndBinaryClients() throws InterruptedException {
+        ChatService service = new ChatService();
+        CountDownLatch latch = new CountDownLatch(3);
+        Map<String, List<String>> none = Collections.emptyMap();
+
+        Client sender = new Client(null, none, latch);
+        Client text = new Client("", none, latch);
+        Client bySubprotocol = new Client(CommandConstants.SUBPROTOCOL_BINARY, none, latch);
+        Client byParam = new Client(null, Collections.singletonMap(CommandConstants.PARAM_FORMAT, Collections.singletonList(CommandConstants.FORMAT_BINARY)), latch);
+        Client[] clients = {sender, text, bySubprotocol, byParam};
+        Node[] nodes = new Node[clients.length];
+
+        try {
+            for (int i = 0; i < clients.length; i++) {
+                nodes[i] = new Node(clients[i].session);
+                service.open(i + 1, nodes[i]);
+                service.addGroupId(i + 1, 7);
+            }
+
+            assertFalse(nodes[1].isBinary());
+            assertTrue(nodes[2].isBinary());
+            assertTrue(nodes[3].isBinary());
+
+            String data = "{\"cmd\":" + CommandConstants.CMD_ROOM_MSG + ",\"userid\":1,\"dstid\":7,\"content\":\"你好\"}";
+            service.dispatch(data);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            assertTrue(sender.received.isEmpty()); // 不发给自己
+            assertSame(data, text.received.poll()); // 文本客户端收到的就是收到的那个 String，没有复制
+
+            for (Client c : new Client[]{bySubprotocol, byParam}) {
+                ByteBuffer payload = (ByteBuffer) c.received.poll();
+                assertTrue(payload.isReadOnly());
+                assertEquals(data, StandardCharsets.UTF_8.decode(payload).toString());
+            }
+
+            // 群发结束、所有接收者发完之后，消息的引用计数归零
+            AtomicBoolean released = new AtomicBoolean();
+            Frame frame = Frame.of(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)), () -> released.set(true));
+            assertEquals(3, service.sendGroupMsg(7, 1, frame));
+            frame.release();
+
+            for (int i = 0; i < 500 && !released.get(); i++)
+                Thread.sleep(10);
+
+            assertTrue(released.get());
+            assertEquals(0, frame.refCnt());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ajaxjs.im.service;
+
+import org.junit.Test;
+
+import javax.websocket.Session;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestConnectionScope {
+    /**
+     * 关闭时把 open 置为 false 的 Session 代理
+     */
+    private static Session session(AtomicBoolean open) {
+        return (Session) Proxy.newProxyInstance(TestConnectionScope.class.getClassLoader(), new Class<?>[]{Session.class}, (p, m, args) -> {
+            if (m.getName().equals("isOpen"))
+                return open.get();
+
+            if (m.getName().equals("close"))
+                open.set(false);
+
+            return null;
+        });
+    }
+
+    /**
+     * 阻塞直到被中断
+     */
+    private static Runnable blocking(AtomicInteger running) {
+        return () -> {
+            running.incrementAndGet();
+
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+    }
+
+    private static boolean join(ConnectionScope scope) throws InterruptedException {
+        Thread joiner = new Thread(() -> {
+            try {
+                scope.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        joiner.start();
+        joiner.join(TimeUnit.SECONDS.toMillis(5));
+
+        return !joiner.isAlive();
+    }
+
+    @Test
+    public void testTeardown() throws InterruptedException {
+        AtomicBoolean open = new AtomicBoolean(true);
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        ConnectionScope scope = new ConnectionScope(session(open), false, closed::incrementAndGet);
+        Runnable recv = blocking(running);
+        scope.fork("recv", () -> {
+            started.countDown();
+            recv.run();
+        });
+        scope.fork("send", () -> { // 例如发送失败，线程结束
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertFalse(scope.isClosed());
+        finish.countDown();
+
+        assertTrue(join(scope)); // 另一个线程被中断
+        assertTrue(scope.isClosed());
+        assertFalse(open.get());
+        assertEquals(1, closed.get());
+        assertEquals(0, running.get());
+
+        scope.close(); // 重复关闭不再执行清理
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testForkAfterClose() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        ConnectionScope scope = new ConnectionScope(session(new AtomicBoolean(true)), false, null);
+        scope.close();
+        scope.fork("late", blocking(running));
+
+        assertTrue(join(scope));
+        assertEquals(0, running.get());
+    }
+
+    @Test
+    public void testForkRacingClose() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+
+        for (int i = 0; i < 500; i++) {
+            ConnectionScope scope = new ConnectionScope(session(new AtomicBoolean(true)), false, null);
+            CountDownLatch go = new CountDownLatch(1);
+            Thread closer = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                scope.close();
+            });
+            closer.start();
+
+            go.countDown();
+            scope.fork("recv", blocking(running));
+            scope.fork("send", blocking(running));
+            closer.join();
+
+            assertTrue("round " + i, join(scope)); // 不论谁先谁后，都不会留下阻塞的线程
+        }
+
+        assertEquals(0, running.get());
+    }
+}
@@ -0,0 +1,160 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.model.Frame;
+import com.ajaxjs.im.model.Node;
+import org.junit.Test;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class TestDeliveryEngine {
+    /**
+     * 用 Session 代理创建连接，每次 sendText 都交给 onSend
+     */
+    private static Node node(Consumer<String> onSend) {
+        RemoteEndpoint.Basic remote = (RemoteEndpoint.Basic) Proxy.newProxyInstance(TestDeliveryEngine.class.getClassLoader(), new Class<?>[]{RemoteEndpoint.Basic.class}, (p, m, args) -> {
+            if (m.getName().equals("sendText"))
+                onSend.accept((String) args[0]);
+
+            return null;
+        });
+
+        Session session = (Session) Proxy.newProxyInstance(TestDeliveryEngine.class.getClassLoader(), new Class<?>[]{Session.class}, (p, m, args) -> {
+            if (m.getName().equals("isOpen"))
+                return true;
+
+            return m.getName().equals("getBasicRemote") ? remote : null;
+        });
+
+        return new Node(session);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++)
+            Thread.sleep(10);
+
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void testSendFailure() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> sent = new ArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(2);
+
+        Node node = node(text -> {
+            if (calls.incrementAndGet() == 1) // 例如检查之后连接才关闭，容器抛出的异常
+                throw new IllegalStateException("The WebSocket session has been closed");
+
+            synchronized (sent) {
+                sent.add(text);
+            }
+
+            delivered.countDown();
+        });
+
+        DeliveryEngine engine = new DeliveryEngine(1);
+        List<Frame> frames = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                Frame frame = Frame.ofText("m" + i);
+                frames.add(frame);
+                assertTrue(engine.enqueue(node, frame));
+                frame.release();
+
+                if (i == 0) // 第一条发送失败之后再发后面的
+                    awaitTrue(() -> !node.getScheduled().get());
+            }
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(3, calls.get());
+
+            synchronized (sent) {
+                assertEquals(Arrays.asList("m1", "m2"), sent);
+            }
+
+            awaitTrue(() -> !node.getScheduled().get());
+
+            for (Frame frame : frames) // 发送失败的那条也已释放
+                assertEquals(0, frame.refCnt());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void testOrderAndRequeue() throws InterruptedException {
+        List<String> sent = new ArrayList<>();
+        CountDownLatch first = new CountDownLatch(1);
+        Consumer<String> record = text -> {
+            synchronized (sent) {
+                sent.add(text);
+            }
+        };
+
+        Node a = node(text -> {
+            try {
+                first.await(); // 第一条发出之前，其余的消息都已排队
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            record.accept(text);
+        });
+        a.setDataQueue(new LinkedBlockingQueue<>(1000));
+        Node b = node(record);
+
+        DeliveryEngine engine = new DeliveryEngine(1); // 只有一个工作线程，两个连接轮流
+        List<Frame> frames = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                Frame frame = Frame.ofText("a" + i);
+                frames.add(frame);
+                assertTrue(engine.enqueue(a, frame));
+                frame.release();
+            }
+
+            Frame other = Frame.ofText("b");
+            frames.add(other);
+            assertTrue(engine.enqueue(b, other));
+            other.release();
+            first.countDown();
+
+            awaitTrue(() -> {
+                synchronized (sent) {
+                    return sent.size() == 201;
+                }
+            });
+
+            synchronized (sent) {
+                // a 发满一批（64 条）后重新排队，b 在 a 的两批之间发出
+                assertEquals(64, sent.indexOf("b"));
+                sent.remove("b");
+
+                for (int i = 0; i < 200; i++) // 同一连接的消息顺序不变
+                    assertEquals("a" + i, sent.get(i));
+            }
+
+            awaitTrue(() -> !a.getScheduled().get() && !b.getScheduled().get());
+
+            for (Frame frame : frames)
+                assertEquals(0, frame.refCnt());
+        } finally {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ajaxjs.im.service;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TestGroupIndex {
+    private static long[] sorted(long[] members) {
+        long[] copy = members.clone();
+        Arrays.sort(copy);
+
+        return copy;
+    }
+
+    @Test
+    public void testSnapshot() {
+        GroupIndex index = new GroupIndex();
+        assertEquals(0, index.members(1).length);
+
+        assertTrue(index.join(1, 10));
+        assertTrue(index.join(1, 20));
+        assertFalse(index.join(1, 20));
+
+        long[] s1 = index.members(1);
+        assertArrayEquals(new long[]{10, 20}, sorted(s1));
+        assertSame(s1, index.members(1)); // 成员没有变化，复用快照
+
+        assertTrue(index.join(1, 30));
+        long[] s2 = index.members(1);
+        assertNotSame(s1, s2); // 加入后重建
+        assertArrayEquals(new long[]{10, 20, 30}, sorted(s2));
+        assertArrayEquals(new long[]{10, 20}, sorted(s1)); // 旧快照不受影响
+
+        assertTrue(index.leave(1, 10));
+        assertFalse(index.leave(1, 10));
+        long[] s3 = index.members(1);
+        assertNotSame(s2, s3); // 退出后重建
+        assertArrayEquals(new long[]{20, 30}, sorted(s3));
+        assertTrue(index.isMember(1, 20));
+        assertFalse(index.isMember(1, 10));
+
+        assertTrue(index.join(2, 20));
+        assertEquals(2, index.getGroupCount());
+
+        index.leave(1, 20);
+        index.leave(1, 30);
+        assertEquals(1, index.getGroupCount()); // 最后一个成员退出后删除该群
+        assertEquals(0, index.members(1).length);
+        assertFalse(index.leave(3, 20));
+    }
+}
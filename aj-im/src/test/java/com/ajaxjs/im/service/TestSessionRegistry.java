@@ -0,0 +1,69 @@
+package com.ajaxjs.im.service;
+
+import com.ajaxjs.im.model.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestSessionRegistry {
+    @Test
+    public void testReplace() {
+        SessionRegistry registry = new SessionRegistry();
+        Node old = new Node(null), node = new Node(null);
+
+        assertNull(registry.register(1L, old));
+        assertSame(old, registry.register(1L, node)); // 重连
+
+        assertTrue(old.isRetired());
+        assertFalse(node.isRetired());
+        assertTrue(node.getGeneration() > old.getGeneration());
+        assertEquals(1, registry.getReplacedCount());
+        assertEquals(1, registry.getOnlineCount());
+        assertSame(node, registry.lookup(1L));
+    }
+
+    @Test
+    public void testStaleUnregister() {
+        SessionRegistry registry = new SessionRegistry();
+        Node old = new Node(null), node = new Node(null);
+        registry.register(1L, old);
+        registry.register(1L, node);
+
+        assertFalse(registry.unregister(1L, old)); // 旧连接迟到的断线通知
+        assertFalse(registry.unregister(1L, new Node(null))); // 没有登记过的连接
+        assertFalse(registry.unregister(2L, node)); // 别的用户
+        assertSame(node, registry.lookup(1L));
+        assertEquals(1, registry.getOnlineCount());
+
+        assertTrue(registry.unregister(1L, node));
+        assertTrue(node.isRetired());
+        assertNull(registry.lookup(1L));
+        assertEquals(0, registry.getOnlineCount());
+        assertFalse(registry.unregister(1L, node));
+    }
+
+    @Test
+    public void testOnlineCount() {
+        SessionRegistry registry = new SessionRegistry();
+        Node[] nodes = new Node[10];
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(null);
+            registry.register(i, nodes[i]);
+        }
+
+        assertEquals(10, registry.getOnlineCount());
+        registry.register(3L, new Node(null));
+        assertEquals(10, registry.getOnlineCount());
+
+        assertTrue(registry.unregister(0L, nodes[0]));
+        assertSame(nodes[1], registry.unregister(1L));
+        assertNull(registry.unregister(1L));
+        assertFalse(registry.unregister(3L, nodes[3]));
+        assertEquals(8, registry.getOnlineCount());
+
+        assertNull(registry.lookup(0L));
+        assertEquals(1, registry.getLookupCount());
+        assertEquals(1, registry.getMissCount());
+    }
+}
@@ -0,0 +1,89 @@
+package com.ajaxjs.nlp.benchmark;
+
+import com.ajaxjs.nlp.TextRankWithTFIDF;
+import com.ajaxjs.nlp.TfIdfUtil;
+import com.ajaxjs.nlp.corpus.CorpusStat;
+import com.ajaxjs.nlp.corpus.CorpusTFIDF;
+import com.ajaxjs.nlp.corpus.IdfModel;
+import com.ajaxjs.nlp.parsedoc.Document;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 整个语料库的关键词提取。每次调用处理 docCount 篇文档，通过 {@link OperationsPerInvocation} 折算为“篇/秒”
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorpusBenchmark {
+    /**
+     * 与 {@link OperationsPerInvocation} 的值保持一致
+     */
+    private static final int DOC_COUNT = 200;
+
+    @Param({"500", "5000"})
+    public int docLength;
+
+    @Param("42")
+    public long seed;
+
+    private Path dir;
+
+    private Path idfFile;
+
+    private IdfModel idfModel;
+
+    private List<String> contents;
+
+    private final CorpusTFIDF engine = new CorpusTFIDF();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<Document> docs = new CorpusGenerator(seed).documents(DOC_COUNT, docLength);
+        contents = docs.stream().map(Document::getContent).collect(Collectors.toList());
+        dir = CorpusGenerator.write(Files.createTempDirectory("aj-nlp-bench"), docs);
+
+        idfFile = Files.createTempFile("aj-nlp-bench", ".idf");
+        IdfModel.save(engine.analyze(dir.toString()), idfFile);
+        idfModel = IdfModel.open(idfFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> all = Files.walk(dir)) {
+            all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+
+        Files.deleteIfExists(idfFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOC_COUNT)
+    public CorpusStat corpusTFIDF() {
+        return engine.analyze(dir.toString());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOC_COUNT)
+    public List<Map<String, Double>> tfIdfUtil() {
+        return new TfIdfUtil(contents).eval();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOC_COUNT)
+    public Map<String, List<String>> textRankWithIdfModel() {
+        return TextRankWithTFIDF.textRankMultiplyIDF(dir.toString(), idfModel);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ajaxjs.nlp.benchmark;
+
+import com.ajaxjs.nlp.parsedoc.Document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 生成可重复的中英文混合语料
+ * <p>
+ * 词频服从 Zipf 分布（与真实文本相近），种子相同则生成的语料完全相同。
+ */
+public class CorpusGenerator {
+    private static final String[] CHINESE = {
+            "自然语言", "处理", "关键词", "提取", "算法", "文本", "数据", "模型", "语料库", "分词", "中文", "计算机", "信息", "检索",
+            "搜索引擎", "新闻", "文章", "用户", "系统", "网络", "技术", "研究", "方法", "结果", "问题", "应用", "服务", "平台",
+            "公司", "市场", "经济", "发展", "政府", "社会", "教育", "学生", "老师", "学校", "城市", "交通", "医院", "医生", "健康",
+            "科学", "实验", "数据库", "程序", "开发", "性能", "优化", "内存", "线程", "并发", "服务器", "客户端", "浏览器", "手机",
+            "我们", "他们", "这个", "那个", "一个", "进行", "通过", "已经", "可以", "需要", "认为", "表示", "今天", "时间", "工作"
+    };
+
+    private static final String[] ENGLISH = {
+            "TextRank", "TF-IDF", "Java", "HanLP", "Ansj", "Lucene", "Spring", "Tomcat", "JVM", "GC", "API", "JSON", "HTTP",
+            "cloud", "index", "query", "token", "graph", "vector", "cluster"
+    };
+
+    private static final String[] PUNCTUATION = {"，", "。", "；", "！", "？", "、"};
+
+    private final Random random;
+
+    /**
+     * Zipf 分布的累积概率
+     */
+    private final double[] cdf;
+
+    private final String[] words;
+
+    public CorpusGenerator(long seed) {
+        random = new Random(seed);
+        words = new String[CHINESE.length + ENGLISH.length];
+        System.arraycopy(CHINESE, 0, words, 0, CHINESE.length);
+        System.arraycopy(ENGLISH, 0, words, CHINESE.length, ENGLISH.length);
+
+        // 打乱词的排名，让中英文词交错出现在高频区
+        for (int i = words.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String t = words[i];
+            words[i] = words[j];
+            words[j] = t;
+        }
+
+        cdf = new double[words.length];
+        double sum = 0;
+
+        for (int i = 0; i < words.length; i++)
+            cdf[i] = sum += 1.0 / (i + 1);
+
+        for (int i = 0; i < words.length; i++)
+            cdf[i] /= sum;
+    }
+
+    private String nextWord() {
+        double r = random.nextDouble();
+        int low = 0, high = cdf.length - 1;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (cdf[mid] < r)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return words[low];
+    }
+
+    /**
+     * 生成一段文本
+     *
+     * @param length 大约的字符数
+     * @return 文本
+     */
+    public String text(int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        int sentence = 0;
+
+        while (sb.length() < length) {
+            String word = nextWord();
+
+            if (sb.length() > 0 && Character.isLetter(word.charAt(0)) && word.charAt(0) < 128)
+                sb.append(' ');
+
+            sb.append(word);
+
+            if (++sentence >= 6 + random.nextInt(10)) {
+                sb.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+                sentence = 0;
+            }
+        }
+
+        return sb.append('。').toString();
+    }
+
+    /**
+     * 生成一批文档
+     *
+     * @param count  文档数
+     * @param length 每篇正文大约的字符数
+     * @return 文档列表
+     */
+    public List<Document> documents(int count, int length) {
+        List<Document> docs = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            docs.add(new Document(text(20), text(length)));
+
+        return docs;
+    }
+
+    /**
+     * 把一批文档写入目录，每篇一个文件
+     *
+     * @param dir  目录
+     * @param docs 文档
+     * @return 目录
+     * @throws IOException 写入失败
+     */
+    public static Path write(Path dir, List<Document> docs) throws IOException {
+        Files.createDirectories(dir);
+
+        for (int i = 0; i < docs.size(); i++) {
+            Document doc = docs.get(i);
+            Files.write(dir.resolve(String.format("doc-%06d.txt", i)), (doc.getTitle() + "\n" + doc.getContent()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return dir;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ajaxjs.nlp.benchmark;
+
+import com.ajaxjs.nlp.TFIDF;
+import com.ajaxjs.nlp.TextRank;
+import com.ajaxjs.nlp.TextRankWithMultiWin;
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.textrank.TextRankConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单篇文档的关键词提取。每次调用处理一篇文档，所以吞吐量即“篇/秒”
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExtractorBenchmark {
+    /**
+     * 每篇正文大约的字符数
+     */
+    @Param({"500", "5000"})
+    public int docLength;
+
+    @Param("42")
+    public long seed;
+
+    private List<Document> docs;
+
+    private int next;
+
+    private final TextRankConfig config = TextRankConfig.DEFAULT;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        docs = new CorpusGenerator(seed).documents(64, docLength);
+    }
+
+    private Document nextDoc() {
+        Document doc = docs.get(next);
+        next = (next + 1) % docs.size();
+
+        return doc;
+    }
+
+    @Benchmark
+    public Map<String, Float> tf() {
+        return TFIDF.getTF(nextDoc().getContent());
+    }
+
+    @Benchmark
+    public List<String> textRank() {
+        Document doc = nextDoc();
+
+        return TextRank.getKeyword(doc.getTitle(), doc.getContent(), config);
+    }
+
+    @Benchmark
+    public List<String> multiWindow() {
+        Document doc = nextDoc();
+
+        return TextRankWithMultiWin.integrateMultiWindow(doc.getTitle(), doc.getContent(), 3, 10);
+    }
+
+    @Benchmark
+    public List<String> multiWindowOnePass() {
+        Document doc = nextDoc();
+
+        return TextRankWithMultiWin.integrateMultiWindowOnePass(doc.getTitle(), doc.getContent(), 3, 10);
+    }
+}
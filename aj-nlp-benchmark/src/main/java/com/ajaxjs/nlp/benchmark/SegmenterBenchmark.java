@@ -0,0 +1,87 @@
+package com.ajaxjs.nlp.benchmark;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.common.Term;
+import org.ansj.domain.Result;
+import org.ansj.splitWord.analysis.DicAnalysis;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wltea.analyzer.lucene.IKAnalyzer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三种分词器分词一篇文档的吞吐量与延迟
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SegmenterBenchmark {
+    @Param({"500", "5000"})
+    public int docLength;
+
+    @Param("42")
+    public long seed;
+
+    private String[] texts;
+
+    private int next;
+
+    private IKAnalyzer ik;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CorpusGenerator generator = new CorpusGenerator(seed);
+        texts = new String[64];
+
+        for (int i = 0; i < texts.length; i++)
+            texts[i] = generator.text(docLength);
+
+        ik = new IKAnalyzer(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ik.close();
+    }
+
+    private String nextText() {
+        String text = texts[next];
+        next = (next + 1) % texts.length;
+
+        return text;
+    }
+
+    @Benchmark
+    public List<Term> hanlp() {
+        return HanLP.segment(nextText());
+    }
+
+    @Benchmark
+    public Result ansj() {
+        return DicAnalysis.parse(nextText());
+    }
+
+    @Benchmark
+    public void ik(Blackhole bh) throws IOException {
+        try (StringReader r = new StringReader(nextText())) {
+            TokenStream ts = ik.tokenStream("", r);
+            CharTermAttribute term = ts.getAttribute(CharTermAttribute.class);
+            ts.reset();
+
+            while (ts.incrementToken())
+                bh.consume(term.toString());
+
+            ts.end();
+            ts.close();
+        }
+    }
+}
@@ -12,17 +12,36 @@
 
 package com.ajaxjs.nlp;
 
-import com.ajaxjs.nlp.parsedoc.ReadDir;
-import com.ajaxjs.nlp.parsedoc.ReadFile;
-import com.hankcs.hanlp.HanLP;
+import com.ajaxjs.nlp.common.IntFloatMap;
+import com.ajaxjs.nlp.common.IntIntMap;
+import com.ajaxjs.nlp.common.TopK;
+import com.ajaxjs.nlp.corpus.CorpusStat;
+import com.ajaxjs.nlp.corpus.CorpusTFIDF;
+import com.ajaxjs.nlp.corpus.ExternalCorpusStat;
+import com.ajaxjs.nlp.corpus.ExternalTFIDF;
+import com.ajaxjs.nlp.corpus.IdfModel;
+import com.ajaxjs.nlp.corpus.IdfSource;
+import com.ajaxjs.nlp.corpus.Vocabulary;
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
 import com.hankcs.hanlp.dictionary.stopword.CoreStopWordDictionary;
 import com.hankcs.hanlp.seg.common.Term;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class TFIDF {
     private static int keywordsNumber = 5;
 
+    /**
+     * 语料库计算引擎，目录只扫描一次，并行分词
+     */
+    private static final CorpusTFIDF ENGINE = new CorpusTFIDF();
+
     /**
      * change the number of keywords,default 5
      *
@@ -39,36 +58,64 @@ public class TFIDF {
      * @return 以“词:TF值”为键值对的 Map
      */
     public static Map<String, Float> getTF(String fileContent) {
-        // 使用HanLP对文件内容进行分词
-        List<Term> terms = HanLP.segment(fileContent);
-        ArrayList<String> words = new ArrayList<>();
+        Vocabulary vocabulary = new Vocabulary();
 
-        // 筛选出需要包含的词
-        for (Term t : terms) {
-            if (TFIDF.shouldInclude(t)) words.add(t.word);
-        }
+        return vocabulary.toTermMap(getTF(segment(fileContent, vocabulary)));
+    }
 
-        // 统计每个词的出现次数
-        Map<String, Integer> wordCount = new HashMap<>();
-        Map<String, Float> TFValues = new HashMap<>();
+    /**
+     * 使用指定的分词器计算每个词的TF值，例如传入 {@link com.ajaxjs.nlp.segment.CachingSegmenter} 以跳过重复文本的分词
+     *
+     * @param fileContent 文件的内容
+     * @param segmenter   分词器
+     * @return 以“词:TF值”为键值对的 Map
+     */
+    public static Map<String, Float> getTF(String fileContent, Segmenter segmenter) {
+        Vocabulary vocabulary = new Vocabulary();
 
-        for (String word : words) {
-            // 对于每个词，记录其出现次数
-            if (wordCount.get(word) == null) wordCount.put(word, 1);
-            else wordCount.put(word, wordCount.get(word) + 1);
-        }
+        return vocabulary.toTermMap(getTF(segment(fileContent, vocabulary, segmenter)));
+    }
 
-        int wordLen = words.size();
-        // 遍历词频统计结果，计算TF值
-        Iterator<Map.Entry<String, Integer>> iter = wordCount.entrySet().iterator();
+    /**
+     * 使用 HanLP 分词，过滤停用词后转换为词 id 序列
+     *
+     * @param fileContent 文件的内容
+     * @param vocabulary  词表，新词会登记到其中
+     * @return 词 id 序列
+     */
+    public static int[] segment(String fileContent, Vocabulary vocabulary) {
+        return segment(fileContent, vocabulary, HanLPSegmenter.INSTANCE);
+    }
 
-        while (iter.hasNext()) {
-            Map.Entry<String, Integer> entry = iter.next();
-            // 计算词的TF值并存储
-            TFValues.put(entry.getKey(), Float.parseFloat(entry.getValue().toString()) / wordLen);
-        }
+    /**
+     * 使用指定的分词器分词，转换为词 id 序列
+     *
+     * @param fileContent 文件的内容
+     * @param vocabulary  词表，新词会登记到其中
+     * @param segmenter   分词器，停用词由分词器过滤
+     * @return 词 id 序列
+     */
+    public static int[] segment(String fileContent, Vocabulary vocabulary, Segmenter segmenter) {
+        return segmenter.ids(fileContent, vocabulary);
+    }
+
+    /**
+     * 根据词 id 序列计算每个词的 TF 值
+     *
+     * @param ids 词 id 序列
+     * @return 以“词 id:TF值”为键值对的表
+     */
+    public static IntFloatMap getTF(int[] ids) {
+        IntIntMap wordCount = new IntIntMap(ids.length);
+
+        for (int id : ids) // 统计每个词的出现次数
+            wordCount.increment(id);
+
+        IntFloatMap tfValues = new IntFloatMap(wordCount.size());
+        float wordLen = ids.length;
+        wordCount.forEach((id, count) -> tfValues.put(id, count / wordLen));
 
-        return TFValues;
+        return tfValues;
     }
 
     /**
@@ -82,6 +129,39 @@ public class TFIDF {
         return CoreStopWordDictionary.shouldInclude(term);
     }
 
+    /**
+     * 统计目录下所有文件，目录只扫描一次
+     *
+     * @param dirPath 目录的路径
+     * @return 每个文件的 TF 值和整个目录的 IDF 值
+     */
+    public static CorpusStat analyze(String dirPath) {
+        return ENGINE.analyze(dirPath);
+    }
+
+    /**
+     * 统计目录下所有文件，把 IDF 值保存为模型文件，之后可以用 {@link IdfModel#open(Path)} 打开
+     *
+     * @param dirPath 目录的路径
+     * @param file    模型文件
+     * @throws IOException 写入文件失败
+     */
+    public static void saveIdf(String dirPath, Path file) throws IOException {
+        IdfModel.save(ENGINE.analyze(dirPath), file);
+    }
+
+    /**
+     * 以外存方式统计目录下所有文件，用于比堆内存还大的语料库。结果用完后须关闭
+     *
+     * @param dirPath 目录的路径
+     * @param workDir 存放临时文件的目录
+     * @return 统计结果，可以逐篇读取每个文件的 TF-IDF 值
+     * @throws IOException 读写临时文件失败
+     */
+    public static ExternalCorpusStat analyzeExternal(String dirPath, Path workDir) throws IOException {
+        return new ExternalTFIDF(workDir).analyze(CorpusReader.of(dirPath));
+    }
+
     /**
      * 计算目录下每个文件中每个词的 TF 值
      *
@@ -89,18 +169,7 @@ public class TFIDF {
      * @return 文件路径与其对应的词-TF值映射的映射
      */
     public static Map<String, Map<String, Float>> tfForDir(String dirPath) {
-        Map<String, Map<String, Float>> allTF = new HashMap<>(); // 初始化存储所有文件的词频信息的映射
-        List<String> filelist = ReadDir.readDirFileNames(dirPath); // 获取目录中所有文件的列表
-
-        // 遍历文件列表
-        for (String file : filelist) {
-            // 读取文件内容
-            String content = ReadFile.loadFile(file); // 需要修改ReadFile类的loadFile方法以适应不同的文件读取需求
-            Map<String, Float> dict = TFIDF.getTF(content);// 计算文件中每个词的TF值
-            allTF.put(file, dict); // 将文件的词频信息添加到总映射中
-        }
-
-        return allTF;
+        return ENGINE.analyze(dirPath).getTF();
     }
 
     /**
@@ -110,53 +179,7 @@ public class TFIDF {
      * @return 包含“单词:IDF值”的键值对集合
      */
     public static Map<String, Float> idfForDir(String dirPath) {
-        // 读取目录中的文件列表
-        List<String> fileList = ReadDir.readDirFileNames(dirPath);
-        int docNum = fileList.size(); // 文档数量
-        Map<String, Set<String>> passageWords = new HashMap<>();
-
-        // 为每篇文档提取不重复的单词
-        for (String filePath : fileList) {
-            List<Term> terms;
-            Set<String> words = new HashSet<>();
-            String content = ReadFile.loadFile(filePath); // 加载文件内容
-            terms = HanLP.segment(content); // 分词
-
-            // 筛选并收集单词
-            for (Term t : terms) {
-                if (TFIDF.shouldInclude(t))
-                    words.add(t.word);
-            }
-
-            passageWords.put(filePath, words);
-        }
-
-        // 计算单词在文档集合中的出现频率
-        Map<String, Integer> wordPassageNum = new HashMap<>();
-
-        for (String filePath : fileList) {
-            Set<String> wordSet = passageWords.get(filePath);
-
-            // 统计单词出现次数
-            for (String word : wordSet) {
-                if (wordPassageNum.get(word) == null)
-                    wordPassageNum.put(word, 1);
-                else
-                    wordPassageNum.put(word, wordPassageNum.get(word) + 1);
-            }
-        }
-
-        Map<String, Float> wordIDF = new HashMap<>();
-        // 计算每个单词的IDF值
-        Iterator<Map.Entry<String, Integer>> iter_dict = wordPassageNum.entrySet().iterator();
-
-        while (iter_dict.hasNext()) {
-            Map.Entry<String, Integer> entry = iter_dict.next();
-            float value = (float) Math.log(docNum / (Float.parseFloat(entry.getValue().toString())));
-            wordIDF.put(entry.getKey(), value);
-        }
-
-        return wordIDF;
+        return ENGINE.analyze(dirPath).getIDF();
     }
 
     /**
@@ -166,36 +189,7 @@ public class TFIDF {
      * @return 文件路径与其包含单词的TF-IDF值的映射
      */
     public static Map<String, Map<String, Float>> getDirTFIDF(String dirPath) {
-        // 计算目录下每个文件的词频(TF)
-        Map<String, Map<String, Float>> dirFilesTF = TFIDF.tfForDir(dirPath);
-        // 计算目录下所有文件中每个单词的逆文档频率(IDF)
-        Map<String, Float> dirFilesIDF = TFIDF.idfForDir(dirPath);
-        // 初始化存储TF-IDF值的映射
-        Map<String, Map<String, Float>> dirFilesTFIDF = new HashMap<>();
-        // 获取目录下的所有文件名
-        List<String> fileList = ReadDir.readDirFileNames(dirPath);
-        Map<String, Float> singlePassageWord;
-
-        // 遍历每个文件，计算其单词的TF-IDF值
-        for (String filePath : fileList) {
-            Map<String, Float> temp = new HashMap<>();
-            // 获取当前文件的词频映射
-            singlePassageWord = dirFilesTF.get(filePath);
-            Iterator<Map.Entry<String, Float>> it = singlePassageWord.entrySet().iterator();
-
-            // 计算当前文件中每个单词的TF-IDF值
-            while (it.hasNext()) {
-                Map.Entry<String, Float> entry = it.next();
-                String word = entry.getKey();
-                Float TFIDF = entry.getValue() * dirFilesIDF.get(word); // TF * IDF
-                temp.put(word, TFIDF);
-            }
-
-            // 将当前文件的TF-IDF值映射添加到结果中
-            dirFilesTFIDF.put(filePath, temp);
-        }
-
-        return dirFilesTFIDF;
+        return ENGINE.analyze(dirPath).getTFIDF();
     }
 
     /**
@@ -205,42 +199,40 @@ public class TFIDF {
      * @return 包含每个文件路径及其对应关键词的映射
      */
     public static Map<String, List<String>> getKeywords(String dirPath) {
-        // 读取目录下的所有文件名
-        List<String> fileList = ReadDir.readDirFileNames(dirPath);
-        // 计算目录下每个文件中每个词的TF-IDF值
-        Map<String, Map<String, Float>> dirTFIDF = TFIDF.getDirTFIDF(dirPath);
+        // 只扫描一次目录，计算目录下每个文件中每个词的TF-IDF值
+        CorpusStat stat = ENGINE.analyze(dirPath);
+        List<String> fileList = stat.getFiles();
         Map<String, List<String>> keywordsForDir = new HashMap<>();
 
-        for (String file : fileList) {
-            // 获取单个文件的TF-IDF值
-            Map<String, Float> singlePassageTFIDF;
-            singlePassageTFIDF = dirTFIDF.get(file);
-            // 根据TF-IDF值降序排序关键词
-            List<Map.Entry<String, Float>> entryList = new ArrayList<>(singlePassageTFIDF.entrySet());
-
-            Collections.sort(entryList, new Comparator<Map.Entry<String, Float>>() {
-                @Override
-                public int compare(Map.Entry<String, Float> c1, Map.Entry<String, Float> c2) {
-                    return c2.getValue().compareTo(c1.getValue());
-                }
-            });
-
-            // 提取关键词
-            List<String> systemKeywordList = new ArrayList<>();
-            // 注意：这里似乎遗漏了关键词数量的控制变量keywordsNumber，需要从外部传入或定义
-            for (int k = 0; k < keywordsNumber; k++) {
-                try {
-                    systemKeywordList.add(entryList.get(k).getKey());
-                } catch (IndexOutOfBoundsException e) {
-                    // 捕获索引越界异常，但未处理，可能需要添加日志记录或错误处理逻辑
-                }
-            }
-
-            keywordsForDir.put(file, systemKeywordList);
-        }
+        // 根据TF-IDF值取分数最高的关键词
+        for (int i = 0; i < fileList.size(); i++)
+            keywordsForDir.put(fileList.get(i), stat.getKeywords(i, keywordsNumber));
 
         return keywordsForDir;
     }
 
+    /**
+     * 获取某个目录下每个文件的关键词，IDF 值取自已有的模型，不再统计整个目录
+     *
+     * @param dirPath 目录的路径
+     * @param idf     IDF 值的来源，例如 {@link IdfModel}
+     * @return 包含每个文件路径及其对应关键词的映射
+     */
+    public static Map<String, List<String>> getKeywords(String dirPath, IdfSource idf) {
+        Map<String, List<String>> keywordsForDir = new HashMap<>();
+
+        try (Stream<Document> docs = CorpusReader.of(dirPath).documents()) {
+            docs.forEach(doc -> {
+                Map<String, Float> tf = getTF(doc.getContent());
+                TopK<String> topK = new TopK<>(Math.min(keywordsNumber, tf.size()));
 
+                for (Map.Entry<String, Float> entry : tf.entrySet())
+                    topK.offer(entry.getKey(), entry.getValue() * idf.idf(entry.getKey())); // TF * IDF
+
+                keywordsForDir.put(doc.getPath(), topK.toList());
+            });
+        }
+
+        return keywordsForDir;
+    }
 }
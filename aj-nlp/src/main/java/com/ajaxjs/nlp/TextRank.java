@@ -11,7 +11,14 @@
  */
 package com.ajaxjs.nlp;
 
-import com.hankcs.hanlp.HanLP;
+import com.ajaxjs.nlp.common.TopK;
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
+import com.ajaxjs.nlp.textrank.PhraseExtractor;
+import com.ajaxjs.nlp.textrank.RankResult;
+import com.ajaxjs.nlp.textrank.TextRankConfig;
+import com.ajaxjs.nlp.textrank.TokenSequence;
+import com.ajaxjs.nlp.textrank.WordGraph;
 import com.hankcs.hanlp.dictionary.stopword.CoreStopWordDictionary;
 import com.hankcs.hanlp.seg.common.Term;
 
@@ -19,19 +26,28 @@ import java.util.*;
 
 
 public class TextRank {
-    static final float d = 0.85f;           //damping factor, default 0.85
-    static final int max_iter = 200;        //max iteration times
-    static final float min_diff = 0.0001f;  //condition to judge whether recurse or not
-    private static int nKeyword = 5;         //number of keywords to extract,default 5
-    private static int coOccuranceWindow = 3; //size of the co-occurance window, default 3
+    /**
+     * parameters used by the static methods without a config argument: damping factor 0.85, max iteration times 200,
+     * min_diff 0.0001, 5 keywords, co-occurance window 3. The config itself is immutable, the setters swap in a new one
+     */
+    private static volatile TextRankConfig config = TextRankConfig.DEFAULT;
 
     // change default parameters
     public static void setKeywordNumber(int sysKeywordNum) {
-        nKeyword = sysKeywordNum;
+        config = config.withKeywordNumber(sysKeywordNum);
     }
 
     public static void setWindowSize(int window) {
-        coOccuranceWindow = window;
+        config = config.withWindow(window);
+    }
+
+    // e.g. a CachingSegmenter, so that repeated documents skip segmentation
+    public static void setSegmenter(Segmenter segmenter) {
+        config = config.withSegmenter(segmenter);
+    }
+
+    public static TextRankConfig getConfig() {
+        return config;
     }
 
 
@@ -45,32 +61,48 @@ public class TextRank {
      * @return (List < String >): list of keywords
      */
     public static List<String> getKeyword(String title, String content) {
-        Map<String, Float> score = TextRank.getWordScore(title, content);
-
-        //rank keywords in terms of their score
-        List<Map.Entry<String, Float>> entryList = new ArrayList<>(score.entrySet());
-        Collections.sort(entryList, new Comparator<Map.Entry<String, Float>>() {
-            @Override
-            public int compare(Map.Entry<String, Float> o1, Map.Entry<String, Float> o2) {
-                return (o1.getValue() - o2.getValue() > 0 ? -1 : 1);
-            }
-        });
-
-        //System.out.println("After sorting: "+entryList);
-
-        List<String> sysKeywordList = new ArrayList<>();
-        //List<String>  unmergedList=new ArrayList<String>();
-        for (int i = 0; i < nKeyword; ++i) {
-            try {
-                //unmergedList.add(entryList.get(i).getKey());
-                sysKeywordList.add(entryList.get(i).getKey());
-            } catch (IndexOutOfBoundsException e) {
-            }
-        }
-
-        System.out.print("window:" + coOccuranceWindow + "\nkeywordNum: " + nKeyword);
-
-        return sysKeywordList;
+        return getKeyword(title, content, config);
+    }
+
+    /**
+     * extract keywords in terms of title and content of document, safe to call from many threads at once
+     *
+     * @param title(String):   title of document
+     * @param content(String): content of document
+     * @param cfg              parameters of TextRank, including the number of keywords and the size of the co-occur window
+     * @return (List < String >): list of keywords
+     */
+    public static List<String> getKeyword(String title, String content, TextRankConfig cfg) {
+        Map<String, Float> score = TextRank.getWordScore(title, content, cfg);
+
+        //take the top keywordNumber words in terms of their score
+        return TopK.select(score, cfg.getKeywordNumber());
+    }
+
+    /**
+     * extract keyphrases: adjacent top-ranked words of the document are merged into phrases
+     *
+     * @param title(String):   title of document
+     * @param content(String): content of document
+     * @return (List < String >): list of keyphrases, single words included
+     */
+    public static List<String> getKeyphrase(String title, String content) {
+        return getKeyphrase(title, content, config);
+    }
+
+    /**
+     * extract keyphrases, reusing the word ids of the ranking stage instead of segmenting again
+     *
+     * @param title(String):   title of document
+     * @param content(String): content of document
+     * @param cfg              parameters of TextRank, the number of keyphrases is cfg.getKeywordNumber()
+     * @return (List < String >): list of keyphrases, single words included
+     */
+    public static List<String> getKeyphrase(String title, String content, TextRankConfig cfg) {
+        // break between title and content, so that no phrase spans both
+        TokenSequence seq = TokenSequence.of(cfg.getSegmenter().words(title + content), title + '\n' + content);
+
+        return PhraseExtractor.extract(seq, rank(seq, cfg).getScores(), cfg.getKeywordNumber());
     }
 
     /**
@@ -92,75 +124,56 @@ public class TextRank {
      * @return score of each word
      */
     public static Map<String, Float> getWordScore(String title, String content) {
-        //segment text into words
-        List<Term> termList = HanLP.segment(title + content);
-        int count = 1;  //position of each word
-        Map<String, Integer> wordPosition = new HashMap<>();
-        List<String> wordList = new ArrayList<>();
-
-        //filter stop words
-        for (Term t : termList) {
-            if (shouldInclude(t)) {
-                wordList.add(t.word);
-                if (!wordPosition.containsKey(t.word)) {
-                    wordPosition.put(t.word, count);
-                    count++;
-                }
-            }
-        }
-        //System.out.println("Keyword candidates:"+wordList);
-
-        //generate word-graph in terms of size of co-occur window
-        Map<String, Set<String>> words = new HashMap<>();
-        Queue<String> que = new LinkedList<>();
-        for (String w : wordList) {
-            if (!words.containsKey(w)) {
-                words.put(w, new HashSet<>());
-            }
-            que.offer(w);    // insert into the end of the queue
-            if (que.size() > coOccuranceWindow) {
-                que.poll();  // pop from the queue
-            }
-
-            for (String w1 : que) {
-                for (String w2 : que) {
-                    if (w1.equals(w2))
-                        continue;
-
-                    words.get(w1).add(w2);
-                    words.get(w2).add(w1);
-                }
-            }
-        }
-        //System.out.println("word-graph:"+words); //each k,v represents all the words in v point to k
-
-        // iterate till recurse
-        Map<String, Float> score = new HashMap<>();
-        for (int i = 0; i < max_iter; ++i) {
-            Map<String, Float> m = new HashMap<>();
-            float max_diff = 0;
+        return getWordScore(title, content, config);
+    }
 
-            for (Map.Entry<String, Set<String>> entry : words.entrySet()) {
-                String key = entry.getKey();
-                Set<String> value = entry.getValue();
-                m.put(key, 1 - d);
+    /**
+     * return score of each word after TextRank algorithm, safe to call from many threads at once
+     *
+     * @param title(String):   title of document
+     * @param content(String): content of document
+     * @param cfg              parameters of TextRank
+     * @return score of each word
+     */
+    public static Map<String, Float> getWordScore(String title, String content, TextRankConfig cfg) {
+        TokenSequence seq = tokenize(title + content, cfg.getSegmenter());
 
-                for (String other : value) {
-                    int size = words.get(other).size();
-                    if (key.equals(other) || size == 0) continue;
-                    m.put(key, m.get(key) + d / size * (score.get(other) == null ? 0 : score.get(other)));
-                }
+        return seq.toScoreMap(rank(seq, cfg).getScores());
+    }
 
-                max_diff = Math.max(max_diff, Math.abs(m.get(key) - (score.get(key) == null ? 1 : score.get(key))));
-            }
+    /**
+     * rank the words of a tokenized document, also reporting iteration count and residuals of the solver
+     *
+     * @param seq(TokenSequence): words of the document
+     * @param cfg(TextRankConfig): parameters, including the solver
+     * @return scores indexed by word id, with convergence statistics
+     */
+    public static RankResult rank(TokenSequence seq, TextRankConfig cfg) {
+        //generate word-graph in terms of size of co-occur window
+        WordGraph graph = WordGraph.build(seq.getTokens(), seq.getWordCount(), cfg.getWindow());
 
-            score = m;
+        // iterate till recurse
+        return cfg.getSolver().solve(graph, cfg.getD(), cfg.getMaxIter(), cfg.getMinDiff(), null);
+    }
 
-            //exit once recurse
-            if (max_diff <= min_diff) break;
-        }
+    /**
+     * segment text into words and filter stop words
+     *
+     * @param text(String): text to segment
+     * @return words of the text, each numbered in order of first occurrence
+     */
+    public static TokenSequence tokenize(String text) {
+        return tokenize(text, HanLPSegmenter.INSTANCE);
+    }
 
-        return score;
+    /**
+     * segment text with the given segmenter, which is also responsible for filtering stop words
+     *
+     * @param text(String): text to segment
+     * @param segmenter:    segmenter to use
+     * @return words of the text, each numbered in order of first occurrence, with the positions where filtered words were removed
+     */
+    public static TokenSequence tokenize(String text, Segmenter segmenter) {
+        return TokenSequence.of(segmenter.words(text), text);
     }
 }
-
@@ -10,6 +10,11 @@
  */
 package com.ajaxjs.nlp;
 
+import com.ajaxjs.nlp.common.TopK;
+import com.ajaxjs.nlp.textrank.MultiWindowGraph;
+import com.ajaxjs.nlp.textrank.TextRankConfig;
+import com.ajaxjs.nlp.textrank.TokenSequence;
+
 import java.util.*;
 
 public class TextRankWithMultiWin {
@@ -39,9 +44,11 @@ public class TextRankWithMultiWin {
         String key;
         Float value;
 
+        TextRankConfig cfg = TextRank.getConfig();
+
         for (int i = minWindow; i <= maxWindow; i++) {
-            TextRank.setWindowSize(i); // set the size of co-occurance window
-            tempKeywordScore = TextRank.getWordScore(title, content);
+            // use a config with the size of co-occurance window, instead of changing the shared one
+            tempKeywordScore = TextRank.getWordScore(title, content, cfg.withWindow(i));
             Iterator<Map.Entry<String, Float>> it = tempKeywordScore.entrySet().iterator();
 
             while (it.hasNext()) {
@@ -52,22 +59,36 @@ public class TextRankWithMultiWin {
                 else allKeywordScore.put(key, value);
             }
         }
-        // sort the result in terms of the score of each word
-        List<Map.Entry<String, Float>> entryList = new ArrayList<>(allKeywordScore.entrySet());
-        Collections.sort(entryList, new Comparator<Map.Entry<String, Float>>() {
-            @Override
-            public int compare(Map.Entry<String, Float> c1, Map.Entry<String, Float> c2) {
-                return c2.getValue().compareTo(c1.getValue());
-            }
-        });
+        // take the top keywordNum words in terms of the score of each word
+        return TopK.select(allKeywordScore, keywordNum);
+    }
 
-        List<String> fileKeywords = new ArrayList<>();
+    /**
+     * same as {@link #integrateMultiWindow(String, String, int, int)}, but segments the text only once.
+     * The co-occurance graph of every window size is derived from a single graph that records the minimum distance
+     * of each pair of words, and the scores of window w are used as the starting point of window w + 1
+     *
+     * @param title(String):   title of the document
+     * @param content(String): content of the document
+     * @param minWindow(int):  the minimum size of co-occurance window
+     * @param maxWindow(int):  the maximum size of co-occurance window
+     * @return keywords of the document
+     */
+    public static List<String> integrateMultiWindowOnePass(String title, String content, int minWindow, int maxWindow) {
+        TextRankConfig cfg = TextRank.getConfig();
+        TokenSequence seq = TextRank.tokenize(title + content, cfg.getSegmenter());
+        int n = seq.getWordCount();
+        MultiWindowGraph.Cursor cursor = MultiWindowGraph.build(seq.getTokens(), n, maxWindow).cursor();
+        float[] allKeywordScore = new float[n];
+        float[] score = null;
+
+        for (int i = minWindow; i <= maxWindow; i++) {
+            score = cfg.getSolver().solve(cursor.next(i), cfg.getD(), cfg.getMaxIter(), cfg.getMinDiff(), score).getScores(); // warm start from the last window
 
-        for (int j = 0; j < keywordNum; j++)
-            fileKeywords.add(entryList.get(j).getKey());
+            for (int j = 0; j < n; j++)
+                allKeywordScore[j] += score[j];
+        }
 
-        return fileKeywords;
+        return seq.toWords(TopK.select(allKeywordScore, n, keywordNum));
     }
-
 }
-
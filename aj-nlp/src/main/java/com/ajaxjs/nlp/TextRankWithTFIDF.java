@@ -12,10 +12,16 @@
 
 package com.ajaxjs.nlp;
 
-import com.ajaxjs.nlp.parsedoc.ReadDir;
-import com.ajaxjs.nlp.parsedoc.ReadFile;
+import com.ajaxjs.nlp.common.TopK;
+import com.ajaxjs.nlp.corpus.IdfModel;
+import com.ajaxjs.nlp.corpus.IdfSource;
+import com.ajaxjs.nlp.fusion.KeywordScorer;
+import com.ajaxjs.nlp.fusion.RankFusion;
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.parsedoc.Document;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 
 public class TextRankWithTFIDF {
@@ -39,39 +45,34 @@ public class TextRankWithTFIDF {
      * @return keywords of each document of the corpus
      */
     public static Map<String, List<String>> textRankMultiplyIDF(String dirPath) {
-        Map<String, List<String>> result = new HashMap<>();
-
         // get the IDF values for the words of a corpus
-        Map<String, Float> idfForDir = TFIDF.idfForDir(dirPath);
-        List<String> fileList = ReadDir.readDirFileNames(dirPath);
-        String content;
+        return textRankMultiplyIDF(dirPath, TFIDF.analyze(dirPath));
+    }
 
-        for (String file : fileList) {
-            content = ReadFile.loadFile(file);
-            Map<String, Float> trKeywords = TextRank.getWordScore("", content);
-            Iterator<Map.Entry<String, Float>> it = trKeywords.entrySet().iterator();
+    /**
+     * multiply the TextRank-socre of a word by the IDF value of this word, the IDF values come from an existing model
+     * so that the corpus is not scanned again
+     *
+     * @param dirPath(String): path of the directory of the corpus
+     * @param idf              source of the IDF values, such as an {@link IdfModel} built once and saved on disk
+     * @return keywords of each document of the corpus
+     */
+    public static Map<String, List<String>> textRankMultiplyIDF(String dirPath, IdfSource idf) {
+        Map<String, List<String>> result = new HashMap<>();
 
-            while (it.hasNext()) {
-                Map.Entry<String, Float> temp = it.next();
-                String key = temp.getKey();
-                trKeywords.put(key, temp.getValue() * idfForDir.get(key));
-            }
+        try (Stream<Document> docs = CorpusReader.of(dirPath).documents()) {
+            docs.forEach(doc -> {
+                Map<String, Float> trKeywords = TextRank.getWordScore(doc.getTitle(), doc.getContent());
+                TopK<String> topK = new TopK<>(Math.min(keywordsNumber, trKeywords.size()));
 
-            //sort the words in terms of their score in descending order
-            List<Map.Entry<String, Float>> entryList = new ArrayList<>(trKeywords.entrySet());
-            Collections.sort(entryList, new Comparator<Map.Entry<String, Float>>() {
-                public int compare(Map.Entry<String, Float> c1, Map.Entry<String, Float> c2) {
-                    return c2.getValue().compareTo(c1.getValue());
-                }
+                for (Map.Entry<String, Float> temp : trKeywords.entrySet())
+                    topK.offer(temp.getKey(), temp.getValue() * idf.idf(temp.getKey()));
 
+                //take the top keywordsNumber words in terms of their score
+                result.put(doc.getPath(), topK.toList());
             });
-
-            List<String> temp = new ArrayList<>();
-            for (int i = 0; i < keywordsNumber; i++)
-                temp.add(entryList.get(i).getKey());
-
-            result.put(file, temp);
         }
+
         return result;
     }
 
@@ -83,37 +84,12 @@ public class TextRankWithTFIDF {
      * @return keywords of each document of the corpus
      */
     public static Map<String, List<String>> textRankTFIDFVote(String dirPath) {
-        Map<String, List<String>> result = new HashMap<>();
-        List<String> fileList = ReadDir.readDirFileNames(dirPath);
-
-        // get keywords generated by TF-IDF
-        TFIDF.setKeywordsNumber(keywordCandidateNum);
-        Map<String, List<String>> tfidfKeywordsForDir = TFIDF.getKeywords(dirPath);
-
-        List<String> trKeyword;
-        List<String> tfidfKeyword;
-        String content;
-
-        for (String file : fileList) {
-            content = ReadFile.loadFile(file);
-            trKeyword = TextRank.getKeyword("", content);
-            tfidfKeyword = tfidfKeywordsForDir.get(file);
-
-            List<String> temp = new ArrayList<>();
-
-            for (String keyword : tfidfKeyword) {
-                if (trKeyword.contains(keyword)) temp.add(keyword);
-                if (temp.size() == keywordsNumber) break;
-            }
-
-            if (temp.size() == keywordsNumber) result.put(file, temp);
-            else for (String keyword : tfidfKeyword) {
-                if (!temp.contains(keyword)) temp.add(keyword);
-                if (temp.size() == keywordsNumber) result.put(file, temp);
-            }
-        }
-
-        return result;
+        // each file is segmented once, the TF-IDF candidates come first so that they break ties and fill the rest
+        return new RankFusion(RankFusion.Method.VOTE, keywordsNumber)
+                .add(KeywordScorer.tfidf(), 1, keywordCandidateNum)
+                .add(KeywordScorer.textRank(TextRank.getConfig()), 1, TextRank.getConfig().getKeywordNumber())
+                .setSegmenter(TextRank.getConfig().getSegmenter())
+                .fuse(dirPath);
     }
 
 }
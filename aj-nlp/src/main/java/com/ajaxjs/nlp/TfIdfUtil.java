@@ -1,8 +1,13 @@
 package com.ajaxjs.nlp;
 
-import org.ansj.domain.Result;
-import org.ansj.domain.Term;
-import org.ansj.splitWord.analysis.DicAnalysis;
+import com.ajaxjs.nlp.common.IntIntMap;
+import com.ajaxjs.nlp.common.IntList;
+import com.ajaxjs.nlp.corpus.SimilarityIndex;
+import com.ajaxjs.nlp.corpus.SparseVector;
+import com.ajaxjs.nlp.corpus.Vocabulary;
+import com.ajaxjs.nlp.segment.AnsjSegmenter;
+import com.ajaxjs.nlp.segment.PosFilter;
+import com.ajaxjs.nlp.segment.Segmenter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -12,26 +17,147 @@ import java.util.Map;
 public class TfIdfUtil {
     // 文档表
     private List<String> documents;
-    // 文档与词汇列表
-    private List<List<String>> documentWords;
-    // 文档词频统计表
-    private List<Map<String, Integer>> docuementTfList;
-    // 词汇出现文档数统计表
-    private Map<String, Double> idfMap;
-    // 是否只抽取名词
-    private boolean onlyNoun = false;
+    // 词表，文档中的词都转换为词 id
+    private final Vocabulary vocabulary;
+    // 分词器
+    private final Segmenter segmenter;
+    // 词性表，分词结果中的词性都转换为词性 id
+    private final Vocabulary natures = new Vocabulary();
+    // 文档与词汇 id 列表，只分词一次，各种词性过滤都基于它计算
+    private int[][] documentWords;
+    // 与 documentWords 对应的词性 id，-1 表示没有词性
+    private short[][] documentNatures;
+    // 文档词频统计表，以词 id 为键
+    private IntIntMap[] docuementTfList;
+    // 每个词的 IDF 值，下标为词 id
+    private double[] idf;
+    // 每个词出现的文档数，下标为词 id
+    private int[] df;
+    // docuementTfList、idf 是按哪个过滤条件算出的
+    private PosFilter viewFilter;
+    // eval() 使用的词性过滤条件
+    private PosFilter posFilter = PosFilter.ALL;
 
     public TfIdfUtil(List<String> documents) {
+        this(documents, new Vocabulary());
+    }
+
+    /**
+     * 创建实例，与其他计算共用一个词表
+     *
+     * @param documents  文档表
+     * @param vocabulary 词表
+     */
+    public TfIdfUtil(List<String> documents, Vocabulary vocabulary) {
+        this(documents, vocabulary, AnsjSegmenter.INSTANCE);
+    }
+
+    /**
+     * 创建实例，使用指定的分词器
+     *
+     * @param documents  文档表
+     * @param vocabulary 词表
+     * @param segmenter  分词器，默认为 Ansj 分词
+     */
+    public TfIdfUtil(List<String> documents, Vocabulary vocabulary, Segmenter segmenter) {
         this.documents = documents;
+        this.vocabulary = vocabulary;
+        this.segmenter = segmenter;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 是否只抽取名词（n、ns、nz）
+     *
+     * @param onlyNoun true 为只抽取名词
+     */
+    public void setOnlyNoun(boolean onlyNoun) {
+        this.posFilter = onlyNoun ? PosFilter.NOUN : PosFilter.ALL;
+    }
+
+    /**
+     * 设置 {@link #eval()} 使用的词性过滤条件
+     *
+     * @param posFilter 词性过滤条件
+     */
+    public void setPosFilter(PosFilter posFilter) {
+        this.posFilter = posFilter;
     }
 
     public List<Map<String, Double>> eval() {
-        this.splitWord();
-        this.calTf();
-        this.calIdf();
+        return eval(posFilter);
+    }
+
+    /**
+     * 按给定的词性过滤条件计算 TF-IDF。文档只在第一次计算时分词，之后换用别的过滤条件不会重新分词
+     *
+     * @param filter 词性过滤条件，例如 {@link PosFilter#NOUN}、{@link PosFilter#NAMED_ENTITY}
+     * @return 每个文档的“词:TF-IDF值”
+     */
+    public List<Map<String, Double>> eval(PosFilter filter) {
+        prepare(filter);
         return calTfIdf();
     }
 
+    /**
+     * 计算每个文档的 TF-IDF 稀疏向量（L2 归一化），词 id 属于 {@link #getVocabulary()}。
+     * 可以用来构建 {@link SimilarityIndex}，查找相似文档。
+     * 权重与 {@link com.ajaxjs.nlp.corpus.CorpusStat} 一致，为 log(N/DF)·TF，TF 是词的次数除以文档（过滤后）的词数
+     *
+     * @return 稀疏向量，下标与文档表对应
+     */
+    public SparseVector[] vectors() {
+        return vectors(posFilter);
+    }
+
+    /**
+     * 按给定的词性过滤条件计算 TF-IDF 稀疏向量
+     *
+     * @param filter 词性过滤条件
+     * @return 稀疏向量，下标与文档表对应
+     */
+    public SparseVector[] vectors(PosFilter filter) {
+        prepare(filter);
+
+        SparseVector[] vectors = new SparseVector[docuementTfList.length];
+        double documentCount = getDocumentCount();
+
+        for (int i = 0; i < vectors.length; i++) {
+            IntIntMap countMap = docuementTfList[i];
+            int[] words = countMap.keys();
+            float[] weights = new float[words.length];
+            int length = 0;
+
+            for (int word : words)
+                length += countMap.get(word);
+
+            // 出现在所有文档中的词 IDF 为 0，被 SparseVector 丢弃，不影响相似度
+            for (int j = 0; j < words.length; j++)
+                weights[j] = (float) (Math.log(documentCount / df[words[j]]) * countMap.get(words[j]) / length);
+
+            vectors[i] = SparseVector.of(words, weights);
+        }
+
+        return vectors;
+    }
+
+    /**
+     * 确保已经分词，并且 TF、IDF 是按给定的过滤条件计算的
+     */
+    private void prepare(PosFilter filter) {
+        if (documentWords == null)
+            this.splitWord();
+
+        if (!filter.equals(viewFilter)) {
+            this.calTf(filter.compile(natures));
+            this.calIdf();
+            viewFilter = filter;
+        }
+    }
+
     /**
      * 获取所有文档数，用于逆文档频率 IDF 的计算
      *
@@ -43,44 +169,51 @@ public class TfIdfUtil {
 
     /**
      * 对每一个文档进行词语切分
-     * 此方法不接受参数，也不返回值，但会修改类级别的变量documentWords
-     * documentWords会变为一个列表的列表，每个子列表包含一个文档中切分出的词语
+     * 此方法不接受参数，也不返回值，但会修改类级别的变量documentWords、documentNatures
+     * documentWords会变为一个 id 数组的数组，每个子数组包含一个文档中切分出的所有词语的 id，词性 id 保存在documentNatures中
      */
     private void splitWord() {
-        documentWords = new ArrayList<>();
-
-        for (String document : documents) { // 遍历所有文档
-            Result splitWordRes = DicAnalysis.parse(document); // 对文档进行词语切分
-            List<String> wordList = new ArrayList<>();
-
-            for (Term term : splitWordRes.getTerms()) { // 遍历切分结果中的每个词语
-                if (onlyNoun) { // 如果只保留名词
-                    // 判断词语性质是否为名词，并收集到wordList中
-                    if (term.getNatureStr().equals("n") || term.getNatureStr().equals("ns") || term.getNatureStr().equals("nz"))
-                        wordList.add(term.getName());
-                } else wordList.add(term.getName()); // 如果不只保留名词，则收集所有词语
-            }
+        documentWords = new int[documents.size()][];
+        documentNatures = new short[documents.size()][];
+
+        for (int i = 0; i < documentWords.length; i++) { // 遍历所有文档
+            IntList wordList = new IntList(), natureList = new IntList();
+
+            segmenter.tokens(documents.get(i), (term, nature) -> { // 对文档进行词语切分，保留所有词语及其词性，过滤留到计算词频时进行
+                wordList.add(vocabulary.id(term));
+                natureList.add(nature == null ? -1 : natures.id(nature));
+            });
+
+            documentWords[i] = wordList.toArray(); // 将处理过的词语列表添加到documentWords中
+            short[] natureIds = new short[natureList.size()];
+
+            for (int j = 0; j < natureIds.length; j++)
+                natureIds[j] = (short) natureList.get(j); // 词性只有几十种
 
-            documentWords.add(wordList); // 将处理过的词语列表添加到documentWords中
+            documentNatures[i] = natureIds;
         }
     }
 
     /**
      * 计算每个文档的词频
-     * 它遍历每个文档的词列表，计算每个词在文档中的出现次数，然后将这些信息存储在文档词频列表中。
+     * 它遍历每个文档的词列表，计算每个词性符合条件的词在文档中的出现次数，然后将这些信息存储在文档词频列表中。
+     *
+     * @param mask 编译后的词性过滤条件
      */
-    private void calTf() {
-        docuementTfList = new ArrayList<>();
+    private void calTf(PosFilter.Mask mask) {
+        docuementTfList = new IntIntMap[documentWords.length];
 
-        for (List<String> wordList : documentWords) { // 遍历每个文档的词组
-            Map<String, Integer> countMap = new HashMap<>();
+        for (int i = 0; i < documentWords.length; i++) { // 遍历每个文档的词组
+            int[] words = documentWords[i];
+            short[] wordNatures = documentNatures[i];
+            IntIntMap countMap = new IntIntMap(words.length);
 
-            for (String word : wordList) { // 遍历当前文档中的所有词
-                if (countMap.containsKey(word)) countMap.put(word, countMap.get(word) + 1);
-                else countMap.put(word, 1); // 计算词频
+            for (int j = 0; j < words.length; j++) { // 遍历当前文档中的所有词，计算词频
+                if (mask.test(wordNatures[j]))
+                    countMap.increment(words[j]);
             }
 
-            docuementTfList.add(countMap); // 将当前文档的词频映射添加到列表中
+            docuementTfList[i] = countMap; // 将当前文档的词频映射添加到列表中
         }
     }
 
@@ -91,36 +224,32 @@ public class TfIdfUtil {
      */
     private void calIdf() {
         int documentCount = getDocumentCount(); // 获取文档总数
-        idfMap = new HashMap<>();
-        // 统计词语在多少文档里面出现了
-        Map<String, Integer> wordAppearendMap = new HashMap<>();
+        // 统计词语在多少文档里面出现了，下标为词 id
+        int[] wordAppearendMap = new int[vocabulary.size()];
 
         // 遍历所有文档的词频统计，汇总每个词语出现的文档数
-        for (Map<String, Integer> countMap : docuementTfList) {
-            for (String word : countMap.keySet()) {
-                if (wordAppearendMap.containsKey(word)) wordAppearendMap.put(word, wordAppearendMap.get(word) + 1);
-                else wordAppearendMap.put(word, 1);
-            }
+        for (IntIntMap countMap : docuementTfList) {
+            for (int word : countMap.keys())
+                wordAppearendMap[word]++;
         }
 
-        // 对每个词语进行计算，求其IDF值，并存储到idfMap中
-        for (String word : wordAppearendMap.keySet()) {
-            double idf = Math.log(documentCount / (wordAppearendMap.get(word) + 1));
-            idfMap.put(word, idf);
+        // 对每个词语进行计算，求其IDF值，并存储到idf中
+        idf = new double[wordAppearendMap.length];
+
+        for (int word = 0; word < wordAppearendMap.length; word++) {
+            if (wordAppearendMap[word] > 0)
+                idf[word] = Math.log(documentCount / (wordAppearendMap[word] + 1));
         }
+
+        df = wordAppearendMap;
     }
 
     private List<Map<String, Double>> calTfIdf() {
-        List<Map<String, Double>> tfidfRes = new ArrayList<>();
-
-        for (Map<String, Integer> docuementTfMap : docuementTfList) {
-            Map<String, Double> tfIdf = new HashMap<>();
-
-            for (String word : docuementTfMap.keySet()) {
-                double tfidf = idfMap.get(word) * docuementTfMap.get(word);
-                tfIdf.put(word, tfidf);
-            }
+        List<Map<String, Double>> tfidfRes = new ArrayList<>(docuementTfList.length);
 
+        for (IntIntMap docuementTfMap : docuementTfList) {
+            Map<String, Double> tfIdf = new HashMap<>(docuementTfMap.size() * 2);
+            docuementTfMap.forEach((word, count) -> tfIdf.put(vocabulary.term(word), idf[word] * count));
             tfidfRes.add(tfIdf);
         }
 
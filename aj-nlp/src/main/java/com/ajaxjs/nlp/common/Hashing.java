@@ -0,0 +1,27 @@
+package com.ajaxjs.nlp.common;
+
+/**
+ * 开放寻址哈希表共用的工具方法
+ */
+class Hashing {
+    /**
+     * 打散 int 键，避免连续的词 id 聚集在相邻的槽位
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 计算表的容量：不小于预计元素个数两倍的 2 的幂
+     */
+    static int tableSize(int expected) {
+        int capacity = 4;
+
+        while (capacity < expected * 2 && capacity < (1 << 30))
+            capacity <<= 1;
+
+        return capacity;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ajaxjs.nlp.common;
+
+import java.util.Arrays;
+
+/**
+ * 键为非负 int、值为 float 的哈希表
+ * <p>
+ * 开放寻址、线性探测，用于保存以词 id 为键的 TF、TF-IDF 等分数。
+ */
+public class IntFloatMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+
+    private float[] values;
+
+    private int size;
+
+    private int mask;
+
+    public IntFloatMap() {
+        this(16);
+    }
+
+    /**
+     * 创建哈希表
+     *
+     * @param expected 预计的元素个数
+     */
+    public IntFloatMap(int expected) {
+        allocate(Hashing.tableSize(expected));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new float[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        if (key < 0)
+            throw new IllegalArgumentException("key must be non-negative: " + key);
+
+        int i = Hashing.mix(key) & mask;
+
+        while (keys[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    /**
+     * 获取值
+     *
+     * @param key          键
+     * @param defaultValue 不存在时返回的值
+     * @return 值
+     */
+    public float get(int key, float defaultValue) {
+        int i = slot(key);
+
+        return keys[i] == EMPTY ? defaultValue : values[i];
+    }
+
+    /**
+     * 获取值
+     *
+     * @param key 键
+     * @return 值，不存在时返回 0
+     */
+    public float get(int key) {
+        return get(key, 0f);
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] != EMPTY;
+    }
+
+    public void put(int key, float value) {
+        int i = slot(key);
+
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = value;
+            grow();
+        } else
+            values[i] = value;
+    }
+
+    /**
+     * 在原值上累加
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 累加后的值
+     */
+    public float add(int key, float delta) {
+        int i = slot(key);
+
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = delta;
+            grow();
+
+            return delta;
+        }
+
+        return values[i] += delta;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 遍历所有键值对
+     *
+     * @param visitor 回调
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY)
+                visitor.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * 所有的键，顺序不固定
+     *
+     * @return 键数组
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int j = 0;
+
+        for (int key : keys) {
+            if (key != EMPTY)
+                result[j++] = key;
+        }
+
+        return result;
+    }
+
+    private void grow() {
+        if (++size * 2 <= keys.length) // 装载因子不超过 0.5
+            return;
+
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(keys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * 遍历回调
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int key, float value);
+    }
+}
@@ -0,0 +1,216 @@
+package com.ajaxjs.nlp.common;
+
+import java.util.Arrays;
+
+/**
+ * 键为非负 int、值为 int 的哈希表
+ * <p>
+ * 开放寻址、线性探测，键值都存放在 int 数组中，计数时不会产生装箱对象。
+ * 适合以词 id 为键统计词频、文档频率。
+ */
+public class IntIntMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private int mask;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    /**
+     * 创建哈希表
+     *
+     * @param expected 预计的元素个数
+     */
+    public IntIntMap(int expected) {
+        allocate(Hashing.tableSize(expected));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        if (key < 0)
+            throw new IllegalArgumentException("key must be non-negative: " + key);
+
+        int i = Hashing.mix(key) & mask;
+
+        while (keys[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    /**
+     * 获取值
+     *
+     * @param key 键
+     * @return 值，不存在时返回 0
+     */
+    public int get(int key) {
+        int i = slot(key);
+
+        return keys[i] == EMPTY ? 0 : values[i];
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] != EMPTY;
+    }
+
+    public void put(int key, int value) {
+        int i = slot(key);
+
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = value;
+            grow();
+        } else
+            values[i] = value;
+    }
+
+    /**
+     * 在原值上累加
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 累加后的值
+     */
+    public int add(int key, int delta) {
+        int i = slot(key);
+
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            values[i] = delta;
+            grow();
+
+            return delta;
+        }
+
+        return values[i] += delta;
+    }
+
+    /**
+     * 计数加一
+     *
+     * @param key 键
+     * @return 加一后的值
+     */
+    public int increment(int key) {
+        return add(key, 1);
+    }
+
+    /**
+     * 删除键。后面同一探测链上的元素往前移，不留墓碑
+     *
+     * @param key 键
+     * @return 是否存在该键
+     */
+    public boolean remove(int key) {
+        int i = slot(key);
+
+        if (keys[i] == EMPTY)
+            return false;
+
+        size--;
+
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = Hashing.mix(keys[j]) & mask;
+
+            // home 不在 (i, j] 之间时，j 上的元素可以移到空出来的 i
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+
+        keys[i] = EMPTY;
+
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 把另外一个表的值累加进来
+     *
+     * @param other 另外一个表
+     */
+    public void addAll(IntIntMap other) {
+        int[] k = other.keys, v = other.values;
+
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != EMPTY)
+                add(k[i], v[i]);
+        }
+    }
+
+    /**
+     * 遍历所有键值对
+     *
+     * @param visitor 回调
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY)
+                visitor.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * 所有的键，顺序不固定
+     *
+     * @return 键数组
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int j = 0;
+
+        for (int key : keys) {
+            if (key != EMPTY)
+                result[j++] = key;
+        }
+
+        return result;
+    }
+
+    private void grow() {
+        if (++size * 2 <= keys.length) // 装载因子不超过 0.5
+            return;
+
+        int[] oldKeys = keys, oldValues = values;
+        allocate(keys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * 遍历回调
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ajaxjs.nlp.common;
+
+import java.util.Arrays;
+
+/**
+ * 可以自动扩容的 int 数组，用于收集词 id 序列
+ */
+public class IntList {
+    private int[] data;
+
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        data = new int[Math.max(capacity, 4)];
+    }
+
+    public void add(int value) {
+        if (size == data.length)
+            data = Arrays.copyOf(data, size * 2);
+
+        data[size++] = value;
+    }
+
+    public int get(int i) {
+        if (i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+
+        return data[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 复制出有效部分
+     *
+     * @return 数组
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ajaxjs.nlp.common;
+
+/**
+ * 取得分最高的 K 个 int（例如文档 id），与 {@link TopK} 相同的小顶堆，但不装箱
+ */
+public class IntTopK {
+    private final int k;
+
+    private final float[] scores;
+
+    private final int[] ids;
+
+    private int size;
+
+    public IntTopK(int k) {
+        this.k = Math.max(k, 0);
+        scores = new float[this.k];
+        ids = new int[this.k];
+    }
+
+    /**
+     * 加入一个候选
+     *
+     * @param id    候选
+     * @param score 分数
+     */
+    public void offer(int id, float score) {
+        if (k == 0 || Float.isNaN(score))
+            return;
+
+        if (size < k) {
+            scores[size] = score;
+            ids[size] = id;
+            TopK.siftUp(scores, ids, size++);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            ids[0] = id;
+            TopK.siftDown(scores, ids, 0, size);
+        }
+    }
+
+    /**
+     * 把另一个堆中的候选合并进来
+     *
+     * @param other 另一个堆
+     */
+    public void addAll(IntTopK other) {
+        for (int i = 0; i < other.size; i++)
+            offer(other.ids[i], other.scores[i]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前第 K 名的分数，不足 K 个时为负无穷。分数不超过它的候选不会进入结果
+     *
+     * @return 门槛分数
+     */
+    public float threshold() {
+        return size < k ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * 按分数从高到低取出结果，写入给定的数组。调用后堆被清空。
+     *
+     * @param outIds    接收 id，长度不小于 {@link #size()}
+     * @param outScores 接收分数，长度不小于 {@link #size()}
+     * @return 结果个数
+     */
+    public int drain(int[] outIds, float[] outScores) {
+        int n = size;
+
+        while (size > 0) {
+            outIds[--size] = ids[0];
+            outScores[size] = scores[0];
+            scores[0] = scores[size];
+            ids[0] = ids[size];
+            TopK.siftDown(scores, ids, 0, size);
+        }
+
+        return n;
+    }
+}
@@ -0,0 +1,237 @@
+package com.ajaxjs.nlp.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 取得分最高的 K 个元素
+ * <p>
+ * 内部是一个容量为 K 的小顶堆，分数用 float 数组保存。遍历 n 个元素只需 O(n log k)，
+ * 不用把整个 Map 复制成列表再全量排序。
+ *
+ * @param <T> 元素类型
+ */
+public class TopK<T> {
+    private final int k;
+
+    private final float[] scores;
+
+    private final Object[] items;
+
+    private int size;
+
+    public TopK(int k) {
+        this.k = Math.max(k, 0);
+        scores = new float[this.k];
+        items = new Object[this.k];
+    }
+
+    /**
+     * 加入一个候选元素
+     *
+     * @param item  元素
+     * @param score 分数
+     */
+    public void offer(T item, float score) {
+        if (k == 0 || Float.isNaN(score))
+            return;
+
+        if (size < k) {
+            scores[size] = score;
+            items[size] = item;
+            siftUp(scores, items, size++);
+        } else if (score > scores[0]) { // 比堆顶（当前第 K 名）大才替换
+            scores[0] = score;
+            items[0] = item;
+            siftDown(scores, items, 0, size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按分数从高到低返回结果。调用后堆被清空。
+     *
+     * @return 分数最高的元素，数量不超过 K
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toList() {
+        Object[] result = new Object[size];
+
+        while (size > 0) {
+            result[--size] = items[0]; // 堆顶是最小的，从后往前放
+            scores[0] = scores[size];
+            items[0] = items[size];
+            items[size] = null;
+            siftDown(scores, items, 0, size);
+        }
+
+        List<T> list = new ArrayList<>(result.length);
+
+        for (Object o : result)
+            list.add((T) o);
+
+        return list;
+    }
+
+    /**
+     * 从“元素:分数”映射中取出分数最高的 K 个元素
+     *
+     * @param score 元素与分数的映射
+     * @param k     要取的数量
+     * @param <T>   元素类型
+     * @return 按分数降序排列的元素，数量不超过 K
+     */
+    public static <T> List<T> select(Map<T, Float> score, int k) {
+        if (k <= 0 || score.isEmpty())
+            return Collections.emptyList();
+
+        TopK<T> topK = new TopK<>(Math.min(k, score.size()));
+
+        for (Map.Entry<T, Float> entry : score.entrySet())
+            topK.offer(entry.getKey(), entry.getValue());
+
+        return topK.toList();
+    }
+
+    /**
+     * 从分数数组中取出分数最高的 K 个下标
+     *
+     * @param score 分数数组，下标通常是词的 id
+     * @param n     有效长度
+     * @param k     要取的数量
+     * @return 按分数降序排列的下标，数量不超过 K
+     */
+    public static int[] select(float[] score, int n, int k) {
+        k = Math.min(k, n);
+
+        if (k <= 0)
+            return new int[0];
+
+        float[] heap = new float[k];
+        int[] ids = new int[k];
+        int size = 0;
+
+        for (int i = 0; i < n; i++) {
+            float s = score[i];
+
+            if (Float.isNaN(s))
+                continue;
+
+            if (size < k) {
+                heap[size] = s;
+                ids[size] = i;
+                siftUp(heap, ids, size++);
+            } else if (s > heap[0]) {
+                heap[0] = s;
+                ids[0] = i;
+                siftDown(heap, ids, 0, size);
+            }
+        }
+
+        int[] result = new int[size];
+
+        while (size > 0) {
+            result[--size] = ids[0];
+            heap[0] = heap[size];
+            ids[0] = ids[size];
+            siftDown(heap, ids, 0, size);
+        }
+
+        return result;
+    }
+
+    private static void siftUp(float[] heap, Object[] items, int i) {
+        float s = heap[i];
+        Object item = items[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (heap[parent] <= s)
+                break;
+
+            heap[i] = heap[parent];
+            items[i] = items[parent];
+            i = parent;
+        }
+
+        heap[i] = s;
+        items[i] = item;
+    }
+
+    private static void siftDown(float[] heap, Object[] items, int i, int size) {
+        if (size == 0)
+            return;
+
+        float s = heap[i];
+        Object item = items[i];
+        int half = size >>> 1;
+
+        while (i < half) {
+            int child = 2 * i + 1, right = child + 1;
+
+            if (right < size && heap[right] < heap[child])
+                child = right;
+
+            if (s <= heap[child])
+                break;
+
+            heap[i] = heap[child];
+            items[i] = items[child];
+            i = child;
+        }
+
+        heap[i] = s;
+        items[i] = item;
+    }
+
+    static void siftUp(float[] heap, int[] ids, int i) {
+        float s = heap[i];
+        int id = ids[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (heap[parent] <= s)
+                break;
+
+            heap[i] = heap[parent];
+            ids[i] = ids[parent];
+            i = parent;
+        }
+
+        heap[i] = s;
+        ids[i] = id;
+    }
+
+    static void siftDown(float[] heap, int[] ids, int i, int size) {
+        if (size == 0)
+            return;
+
+        float s = heap[i];
+        int id = ids[i];
+        int half = size >>> 1;
+
+        while (i < half) {
+            int child = 2 * i + 1, right = child + 1;
+
+            if (right < size && heap[right] < heap[child])
+                child = right;
+
+            if (s <= heap[child])
+                break;
+
+            heap[i] = heap[child];
+            ids[i] = ids[child];
+            i = child;
+        }
+
+        heap[i] = s;
+        ids[i] = id;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.IntFloatMap;
+import com.ajaxjs.nlp.common.TopK;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次扫描语料库后得到的统计结果：每个文件的 TF 值，以及整个语料库的 IDF 值
+ * <p>
+ * 内部以词 id 保存，需要以词为键的 Map 时再转换。
+ */
+public class CorpusStat implements IdfSource {
+    /**
+     * 参与统计的文件列表，顺序与读取目录时一致
+     */
+    private final List<String> files;
+
+    /**
+     * 语料库的词表
+     */
+    private final Vocabulary vocabulary;
+
+    /**
+     * 每个文件的“词 id:TF值”，下标与 files 对应
+     */
+    private final IntFloatMap[] tf;
+
+    /**
+     * 每个词的 DF 值，下标为词 id
+     */
+    private final int[] df;
+
+    /**
+     * 每个词的 IDF 值，下标为词 id
+     */
+    private final float[] idf;
+
+    public CorpusStat(List<String> files, Vocabulary vocabulary, IntFloatMap[] tf, int[] df) {
+        this.files = files;
+        this.vocabulary = vocabulary;
+        this.tf = tf;
+        this.df = df;
+
+        int docNum = files.size();
+        idf = new float[df.length];
+
+        for (int id = 0; id < df.length; id++)
+            idf[id] = (float) Math.log(docNum / (float) df[id]);
+    }
+
+    /**
+     * 获取文档数量
+     *
+     * @return 文档数量
+     */
+    public int getDocNum() {
+        return files.size();
+    }
+
+    public List<String> getFiles() {
+        return files;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 获取第 i 个文件的“词 id:TF值”
+     *
+     * @param i 文件的下标
+     * @return 以词 id 为键的 TF 值
+     */
+    public IntFloatMap getTermTF(int i) {
+        return tf[i];
+    }
+
+    /**
+     * 每个词的 DF 值，下标为词 id
+     *
+     * @return DF 数组
+     */
+    public int[] getTermDF() {
+        return df;
+    }
+
+    /**
+     * 每个词的 IDF 值，下标为词 id
+     *
+     * @return IDF 数组
+     */
+    public float[] getTermIDF() {
+        return idf;
+    }
+
+    /**
+     * 文件路径与其对应的“词:TF值”映射
+     *
+     * @return TF 值
+     */
+    public Map<String, Map<String, Float>> getTF() {
+        Map<String, Map<String, Float>> result = new HashMap<>(tf.length * 2);
+
+        for (int i = 0; i < tf.length; i++)
+            result.put(files.get(i), vocabulary.toTermMap(tf[i]));
+
+        return result;
+    }
+
+    /**
+     * “词:IDF值”映射
+     *
+     * @return IDF 值
+     */
+    public Map<String, Float> getIDF() {
+        return vocabulary.toTermMap(idf);
+    }
+
+    @Override
+    public float idf(String term) {
+        int id = vocabulary.find(term);
+
+        return id == -1 ? (float) Math.log(files.size()) : idf[id];
+    }
+
+    /**
+     * 计算第 i 个文件中每个词的 TF-IDF 值
+     *
+     * @param i 文件的下标
+     * @return 以词 id 为键的 TF-IDF 值
+     */
+    public IntFloatMap getTermTFIDF(int i) {
+        IntFloatMap result = new IntFloatMap(tf[i].size());
+        tf[i].forEach((id, value) -> result.put(id, value * idf[id])); // TF * IDF
+
+        return result;
+    }
+
+    /**
+     * 第 i 个文件的 TF-IDF 向量，L2 归一化
+     *
+     * @param i 文件的下标
+     * @return 稀疏向量
+     */
+    public SparseVector getVector(int i) {
+        return SparseVector.of(getTermTFIDF(i));
+    }
+
+    /**
+     * 所有文件的 TF-IDF 向量，用于构建 {@link SimilarityIndex}
+     *
+     * @return 稀疏向量，下标与 files 对应
+     */
+    public SparseVector[] getVectors() {
+        SparseVector[] vectors = new SparseVector[tf.length];
+
+        for (int i = 0; i < tf.length; i++)
+            vectors[i] = getVector(i);
+
+        return vectors;
+    }
+
+    /**
+     * 计算每个文件中每个词的 TF-IDF 值
+     *
+     * @return 文件路径与其包含单词的 TF-IDF 值的映射
+     */
+    public Map<String, Map<String, Float>> getTFIDF() {
+        Map<String, Map<String, Float>> result = new HashMap<>(tf.length * 2);
+
+        for (int i = 0; i < tf.length; i++)
+            result.put(files.get(i), vocabulary.toTermMap(getTermTFIDF(i)));
+
+        return result;
+    }
+
+    /**
+     * 取第 i 个文件中 TF-IDF 值最高的词
+     *
+     * @param i 文件的下标
+     * @param k 关键词数量
+     * @return 按 TF-IDF 值降序排列的关键词
+     */
+    public List<String> getKeywords(int i, int k) {
+        TopK<String> topK = new TopK<>(Math.min(k, tf[i].size()));
+        tf[i].forEach((id, value) -> topK.offer(vocabulary.term(id), value * idf[id]));
+
+        return topK.toList();
+    }
+}
@@ -0,0 +1,199 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.TFIDF;
+import com.ajaxjs.nlp.common.IntFloatMap;
+import com.ajaxjs.nlp.common.IntIntMap;
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 语料库 TF-IDF 计算引擎
+ * <p>
+ * 每个文件只读取、分词一次，同时得出 TF 值和该文件包含的词（用于统计文档频率 DF）。
+ * 文件列表按 Fork/Join 方式拆分到多个核上并行计算，每个子任务维护自己的 DF 表，最后合并。
+ * 所有子任务共用一个 {@link Vocabulary}，统计过程中只使用词 id。
+ * 读取失败的文件交给读取器的错误处理器并跳过，不计入文档数。
+ */
+public class CorpusTFIDF {
+    /**
+     * 子任务不再拆分时处理的文件数
+     */
+    private static final int DEFAULT_THRESHOLD = 8;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    private final Segmenter segmenter;
+
+    public CorpusTFIDF() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public CorpusTFIDF(ForkJoinPool pool, int threshold) {
+        this(pool, threshold, HanLPSegmenter.INSTANCE);
+    }
+
+    /**
+     * 创建引擎
+     *
+     * @param pool      执行计算的线程池
+     * @param threshold 子任务不再拆分时处理的文件数
+     * @param segmenter 分词器
+     */
+    public CorpusTFIDF(ForkJoinPool pool, int threshold, Segmenter segmenter) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("threshold must be positive");
+
+        this.pool = pool;
+        this.threshold = threshold;
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * 统计目录下所有文件
+     *
+     * @param dirPath 目录的路径
+     * @return 统计结果
+     */
+    public CorpusStat analyze(String dirPath) {
+        return analyze(CorpusReader.of(dirPath));
+    }
+
+    /**
+     * 统计读取器匹配的所有文件，文件的字符集、过滤条件等由读取器决定
+     *
+     * @param reader 语料库读取器
+     * @return 统计结果
+     */
+    public CorpusStat analyze(CorpusReader reader) {
+        List<String> fileList;
+
+        try (Stream<Path> paths = reader.paths()) {
+            fileList = paths.map(Path::toString).collect(Collectors.toList());
+        }
+
+        return analyze(fileList, reader);
+    }
+
+    /**
+     * 统计给定的文件
+     *
+     * @param fileList 文件路径列表
+     * @return 统计结果
+     */
+    public CorpusStat analyze(List<String> fileList) {
+        return analyze(fileList, new CorpusReader());
+    }
+
+    /**
+     * 统计给定的文件，用读取器的字符集读取，读取失败时交给读取器的错误处理器
+     *
+     * @param fileList 文件路径列表
+     * @param reader   读取器
+     * @return 统计结果
+     */
+    public CorpusStat analyze(List<String> fileList, CorpusReader reader) {
+        Vocabulary vocabulary = new Vocabulary();
+        IntFloatMap[] tf = new IntFloatMap[fileList.size()];
+        IntIntMap dfMap = pool.invoke(new Task(fileList, reader, vocabulary, tf, 0, fileList.size()));
+
+        int[] df = new int[vocabulary.size()];
+        dfMap.forEach((id, count) -> df[id] = count);
+
+        // 去掉读取失败的文件，TF 表与文件列表仍一一对应
+        List<String> files = new ArrayList<>(fileList.size());
+        int n = 0;
+
+        for (int i = 0; i < tf.length; i++) {
+            if (tf[i] != null) {
+                files.add(fileList.get(i));
+                tf[n++] = tf[i];
+            }
+        }
+
+        return new CorpusStat(files, vocabulary, n == tf.length ? tf : Arrays.copyOf(tf, n), df);
+    }
+
+    /**
+     * 子任务，计算一段文件的 TF 值，返回这段文件的 DF 表
+     */
+    private class Task extends RecursiveTask<IntIntMap> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> fileList;
+
+        private final CorpusReader reader;
+
+        private final Vocabulary vocabulary;
+
+        /**
+         * 每个子任务只写入自己负责的那一段下标，读取失败的文件保持为 null
+         */
+        private final IntFloatMap[] tf;
+
+        private final int from;
+
+        private final int to;
+
+        Task(List<String> fileList, CorpusReader reader, Vocabulary vocabulary, IntFloatMap[] tf, int from, int to) {
+            this.fileList = fileList;
+            this.reader = reader;
+            this.vocabulary = vocabulary;
+            this.tf = tf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntIntMap compute() {
+            if (to - from <= threshold) {
+                IntIntMap df = new IntIntMap();
+
+                for (int i = from; i < to; i++) {
+                    Document doc = reader.read(Paths.get(fileList.get(i))); // 读取失败时已交给错误处理器
+
+                    if (doc == null)
+                        continue;
+
+                    int[] ids = TFIDF.segment(doc.getContent(), vocabulary, segmenter);
+                    tf[i] = TFIDF.getTF(ids);
+
+                    for (int id : tf[i].keys()) // TF 表的键正好是该文档中不重复的词
+                        df.increment(id);
+                }
+
+                return df;
+            }
+
+            int mid = (from + to) >>> 1;
+            Task left = new Task(fileList, reader, vocabulary, tf, from, mid);
+            left.fork();
+            IntIntMap right = new Task(fileList, reader, vocabulary, tf, mid, to).compute();
+            IntIntMap l = left.join();
+
+            // 把较小的表合并到较大的表中
+            if (l.size() >= right.size()) {
+                l.addAll(right);
+
+                return l;
+            } else {
+                right.addAll(l);
+
+                return right;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.TopK;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * {@link ExternalTFIDF} 的统计结果。DF/IDF 在内存中，每篇文档的词频留在磁盘上，需要时按块逐篇读回
+ * <p>
+ * 用完后须调用 {@link #close()} 删除临时文件。
+ */
+public class ExternalCorpusStat implements IdfSource, Closeable {
+    private final Path dir;
+
+    private final List<Path> chunks;
+
+    private final Vocabulary vocabulary;
+
+    private final int[] df;
+
+    private final float[] idf;
+
+    private final int docNum;
+
+    ExternalCorpusStat(Path dir, List<Path> chunks, Vocabulary vocabulary, int[] df, int docNum) {
+        this.dir = dir;
+        this.chunks = chunks;
+        this.vocabulary = vocabulary;
+        this.df = df;
+        this.docNum = docNum;
+        idf = new float[df.length];
+
+        for (int id = 0; id < df.length; id++)
+            idf[id] = df[id] == 0 ? 0 : (float) Math.log(docNum / (float) df[id]);
+    }
+
+    @Override
+    public int getDocNum() {
+        return docNum;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 每个词的 DF 值，下标为词 id
+     *
+     * @return DF 数组
+     */
+    public int[] getTermDF() {
+        return df;
+    }
+
+    /**
+     * 每个词的 IDF 值，下标为词 id
+     *
+     * @return IDF 数组
+     */
+    public float[] getTermIDF() {
+        return idf;
+    }
+
+    /**
+     * “词:IDF值”映射，可以用 {@link IdfModel#save(Map, int, Path)} 保存为模型文件
+     *
+     * @return IDF 值
+     */
+    public Map<String, Float> getIDF() {
+        return vocabulary.toTermMap(idf);
+    }
+
+    @Override
+    public float idf(String term) {
+        int id = vocabulary.find(term);
+
+        return id == -1 || id >= idf.length ? (float) Math.log(docNum) : idf[id];
+    }
+
+    /**
+     * 按统计时的顺序逐篇计算 TF-IDF，同一时刻只有一篇文档的数据在内存中
+     *
+     * @param sink 接收每篇文档的结果
+     * @throws IOException 读取临时文件失败
+     */
+    public void forEach(Sink sink) throws IOException {
+        for (Path chunk : chunks) {
+            try (DataInputStream in = ExternalTFIDF.read(chunk)) {
+                for (int d = in.readInt(); d > 0; d--) {
+                    String docId = in.readUTF();
+                    float total = in.readInt();
+                    int n = in.readInt();
+                    int[] termIds = new int[n];
+                    float[] weights = new float[n];
+
+                    for (int i = 0; i < n; i++) {
+                        termIds[i] = in.readInt();
+                        weights[i] = in.readInt() / total * idf[termIds[i]]; // TF * IDF
+                    }
+
+                    sink.accept(docId, termIds, weights);
+                }
+            }
+        }
+    }
+
+    /**
+     * 逐篇取 TF-IDF 值最高的词
+     *
+     * @param k    每篇的关键词数量
+     * @param sink 接收文档 id 与按 TF-IDF 值降序排列的关键词
+     * @throws IOException 读取临时文件失败
+     */
+    public void forEachKeywords(int k, KeywordSink sink) throws IOException {
+        forEach((docId, termIds, weights) -> {
+            TopK<String> topK = new TopK<>(Math.min(k, termIds.length));
+
+            for (int i = 0; i < termIds.length; i++)
+                topK.offer(vocabulary.term(termIds[i]), weights[i]);
+
+            sink.accept(docId, topK.toList());
+        });
+    }
+
+    /**
+     * 删除临时文件
+     */
+    @Override
+    public void close() {
+        deleteDir(dir);
+    }
+
+    static void deleteDir(Path dir) {
+        if (!Files.exists(dir))
+            return;
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 接收一篇文档的 TF-IDF 值
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * @param docId   文档 id
+         * @param termIds 词 id，升序
+         * @param weights 对应的 TF-IDF 值
+         */
+        void accept(String docId, int[] termIds, float[] weights) throws IOException;
+    }
+
+    /**
+     * 接收一篇文档的关键词
+     */
+    @FunctionalInterface
+    public interface KeywordSink {
+        void accept(String docId, List<String> keywords) throws IOException;
+    }
+}
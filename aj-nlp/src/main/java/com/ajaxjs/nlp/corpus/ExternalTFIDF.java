@@ -0,0 +1,350 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.IntIntMap;
+import com.ajaxjs.nlp.common.IntList;
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * 外存 TF-IDF 计算引擎，用于比堆内存还大的语料库
+ * <p>
+ * 与 {@link CorpusTFIDF} 把所有文件的 TF 表都留在内存中不同，这里逐篇读取、分词，把每篇文档的“词 id:次数”（按词 id 排序）
+ * 缓存到内存预算用完为止，然后整块写入磁盘，同时写出这一块的“词 id:文档数”有序段。
+ * 读完后多路归并所有有序段得出 DF，再由 {@link ExternalCorpusStat} 按块逐篇读回，流式输出 TF-IDF。
+ * <p>
+ * 内存中常驻的只有词表和 DF 数组，与词的种数成正比，与文档数无关。
+ */
+public class ExternalTFIDF {
+    /**
+     * 默认内存预算 64MB
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /**
+     * 归并时每个输入文件的缓冲区大小
+     */
+    private static final int MERGE_BUFFER = 1 << 16;
+
+    private final Path workDir;
+
+    private final long memoryBudget;
+
+    private final Segmenter segmenter;
+
+    public ExternalTFIDF(Path workDir) {
+        this(workDir, DEFAULT_MEMORY_BUDGET, HanLPSegmenter.INSTANCE);
+    }
+
+    /**
+     * 创建引擎
+     *
+     * @param workDir      存放临时文件的目录，每次统计在其中新建一个子目录
+     * @param memoryBudget 缓存文档和归并时可用的内存字节数
+     * @param segmenter    分词器
+     */
+    public ExternalTFIDF(Path workDir, long memoryBudget, Segmenter segmenter) {
+        if (memoryBudget < MERGE_BUFFER * 4L)
+            throw new IllegalArgumentException("memoryBudget is too small: " + memoryBudget);
+
+        this.workDir = workDir;
+        this.memoryBudget = memoryBudget;
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * 统计目录下所有文件
+     *
+     * @param reader 语料库读取器
+     * @return 统计结果，用完后须关闭以删除临时文件
+     * @throws IOException 读写临时文件失败
+     */
+    public ExternalCorpusStat analyze(CorpusReader reader) throws IOException {
+        try (Stream<Document> docs = reader.documents()) {
+            return analyze(docs);
+        }
+    }
+
+    /**
+     * 统计文档流，文档 id 取文件路径，没有路径时取标题
+     *
+     * @param docs 文档流
+     * @return 统计结果，用完后须关闭以删除临时文件
+     * @throws IOException 读写临时文件失败
+     */
+    public ExternalCorpusStat analyze(Stream<Document> docs) throws IOException {
+        Files.createDirectories(workDir);
+        Path dir = Files.createTempDirectory(workDir, "tfidf-");
+        Vocabulary vocabulary = new Vocabulary();
+        List<Path> chunks = new ArrayList<>(), runs = new ArrayList<>();
+        int docNum = 0;
+
+        try {
+            Buffer buffer = new Buffer();
+            long limit = memoryBudget / 2; // 另一半留给写出有序段时的排序
+
+            for (Iterator<Document> it = docs.iterator(); it.hasNext(); docNum++) {
+                Document doc = it.next();
+                String content = doc.getContent() == null ? "" : doc.getContent();
+                buffer.add(doc.getPath() == null ? doc.getTitle() : doc.getPath(), segmenter.ids(content, vocabulary));
+
+                if (buffer.bytes() >= limit)
+                    flush(buffer, dir, chunks, runs);
+            }
+
+            if (buffer.docCount() > 0)
+                flush(buffer, dir, chunks, runs);
+
+            int[] df = mergeRuns(runs, dir, vocabulary.size());
+
+            return new ExternalCorpusStat(dir, chunks, vocabulary, df, docNum);
+        } catch (IOException | RuntimeException e) {
+            ExternalCorpusStat.deleteDir(dir);
+            throw e;
+        }
+    }
+
+    /**
+     * 把缓存的文档写成一块，同时写出这一块的 DF 有序段
+     */
+    private static void flush(Buffer buffer, Path dir, List<Path> chunks, List<Path> runs) throws IOException {
+        Path chunk = dir.resolve(String.format("chunk-%05d.bin", chunks.size()));
+        int[] records = buffer.records.toArray();
+        int[] terms = new int[buffer.termCount]; // 每篇文档中不重复的词
+        int t = 0;
+
+        try (DataOutputStream out = open(chunk)) {
+            out.writeInt(buffer.docIds.size());
+            int p = 0;
+
+            for (String docId : buffer.docIds) {
+                int total = records[p++], n = records[p++];
+                out.writeUTF(docId);
+                out.writeInt(total);
+                out.writeInt(n);
+
+                for (int i = 0; i < n; i++, p += 2) {
+                    out.writeInt(records[p]);
+                    out.writeInt(records[p + 1]);
+                    terms[t++] = records[p];
+                }
+            }
+        }
+
+        chunks.add(chunk);
+        Arrays.sort(terms, 0, t);
+        IntList pairs = new IntList();
+
+        for (int i = 0; i < t; ) {
+            int j = i;
+
+            while (j < t && terms[j] == terms[i])
+                j++;
+
+            pairs.add(terms[i]);
+            pairs.add(j - i);
+            i = j;
+        }
+
+        runs.add(writeRun(dir.resolve(String.format("run-%05d.bin", runs.size())), pairs.toArray()));
+        buffer.clear();
+    }
+
+    /**
+     * 有序段的格式为若干个“词 id, 次数”，以词 id -1 结尾
+     */
+    private static Path writeRun(Path file, int[] pairs) throws IOException {
+        try (DataOutputStream out = open(file)) {
+            for (int value : pairs)
+                out.writeInt(value);
+
+            out.writeInt(-1);
+        }
+
+        return file;
+    }
+
+    /**
+     * 多路归并所有有序段，得出每个词的 DF。段数超过内存预算允许的路数时，先分组归并为较少的段
+     */
+    private int[] mergeRuns(List<Path> runs, Path dir, int termCount) throws IOException {
+        int fanIn = (int) Math.max(2, Math.min(1024, memoryBudget / 2 / MERGE_BUFFER));
+        int generation = 0;
+
+        while (runs.size() > fanIn) {
+            List<Path> merged = new ArrayList<>();
+
+            for (int from = 0; from < runs.size(); from += fanIn) {
+                List<Path> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+                Path file = dir.resolve(String.format("run-%d-%05d.bin", generation, merged.size()));
+
+                try (DataOutputStream out = open(file)) {
+                    merge(group, (term, count) -> {
+                        out.writeInt(term);
+                        out.writeInt(count);
+                    });
+
+                    out.writeInt(-1);
+                }
+
+                for (Path run : group)
+                    Files.delete(run);
+
+                merged.add(file);
+            }
+
+            runs = merged;
+            generation++;
+        }
+
+        int[] df = new int[termCount];
+        merge(runs, (term, count) -> df[term] = count);
+
+        for (Path run : runs)
+            Files.delete(run);
+
+        return df;
+    }
+
+    /**
+     * 归并若干有序段，同一个词的次数相加，按词 id 升序输出
+     */
+    private static void merge(List<Path> runs, PairSink output) throws IOException {
+        List<RunReader> readers = new ArrayList<>(runs.size());
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(Math.max(runs.size(), 1), (a, b) -> Integer.compare(a.term, b.term));
+
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+
+                if (reader.next())
+                    heap.add(reader);
+            }
+
+            while (!heap.isEmpty()) {
+                RunReader top = heap.poll();
+                int term = top.term, count = top.count;
+
+                if (top.next())
+                    heap.add(top);
+
+                while (!heap.isEmpty() && heap.peek().term == term) {
+                    RunReader same = heap.poll();
+                    count += same.count;
+
+                    if (same.next())
+                        heap.add(same);
+                }
+
+                output.accept(term, count);
+            }
+        } finally {
+            for (RunReader reader : readers)
+                reader.in.close();
+        }
+    }
+
+    static DataOutputStream open(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), MERGE_BUFFER));
+    }
+
+    static DataInputStream read(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), MERGE_BUFFER));
+    }
+
+    /**
+     * 内存中缓存的文档：每篇为 [词总数, 不重复词数, 词 id, 次数, 词 id, 次数...]，词 id 升序
+     */
+    private static class Buffer {
+        final List<String> docIds = new ArrayList<>();
+
+        final IntList records = new IntList(1024);
+
+        int termCount;
+
+        long idBytes;
+
+        void add(String docId, int[] ids) {
+            IntIntMap counts = new IntIntMap(ids.length);
+
+            for (int id : ids)
+                counts.increment(id);
+
+            int[] terms = counts.keys();
+            Arrays.sort(terms);
+            records.add(ids.length);
+            records.add(terms.length);
+
+            for (int term : terms) {
+                records.add(term);
+                records.add(counts.get(term));
+            }
+
+            docIds.add(docId);
+            termCount += terms.length;
+            idBytes += 40 + 2L * docId.length();
+        }
+
+        int docCount() {
+            return docIds.size();
+        }
+
+        long bytes() {
+            return 4L * records.size() + idBytes;
+        }
+
+        void clear() {
+            docIds.clear();
+            records.clear();
+            termCount = 0;
+            idBytes = 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PairSink {
+        void accept(int term, int count) throws IOException;
+    }
+
+    /**
+     * 顺序读取一个有序段
+     */
+    private static class RunReader {
+        final DataInputStream in;
+
+        int term;
+
+        int count;
+
+        RunReader(Path file) throws IOException {
+            in = read(file);
+        }
+
+        boolean next() throws IOException {
+            term = in.readInt();
+
+            if (term == -1)
+                return false;
+
+            count = in.readInt();
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.ajaxjs.nlp.corpus;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 保存在磁盘上的 IDF 模型
+ * <p>
+ * 语料库只需统计一次，结果写入一个紧凑的文件，之后通过 {@link MappedByteBuffer} 直接读取，查找时不复制数据。
+ * 同一台机器上的多个 JVM 打开同一个文件，共用操作系统的页缓存。
+ * <p>
+ * 文件格式（大端）：
+ * <pre>
+ * int   魔数 0x414A4944（"AJID"）
+ * int   版本号
+ * int   词数 n
+ * int   文档数
+ * float[n]     IDF 值
+ * int[n + 1]   每个词在字符串区中的起始位置
+ * byte[]       字符串区，所有词的 UTF-8 编码按字节序排列
+ * </pre>
+ */
+public class IdfModel implements IdfSource {
+    private static final int MAGIC = 0x414A4944;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER = 16;
+
+    private final MappedByteBuffer buffer;
+
+    private final int size;
+
+    private final int docNum;
+
+    private final int offsetsStart;
+
+    private final int termsStart;
+
+    private IdfModel(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Not an IDF model file");
+
+        if (buffer.getInt(4) != VERSION)
+            throw new IllegalArgumentException("Unsupported IDF model version: " + buffer.getInt(4));
+
+        size = buffer.getInt(8);
+        docNum = buffer.getInt(12);
+        offsetsStart = HEADER + 4 * size;
+        termsStart = offsetsStart + 4 * (size + 1);
+    }
+
+    /**
+     * 以只读方式打开模型文件
+     *
+     * @param file 模型文件
+     * @return IDF 模型
+     * @throws IOException 读取文件失败
+     */
+    public static IdfModel open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // 关闭通道后映射仍然有效
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            return new IdfModel(buffer);
+        }
+    }
+
+    /**
+     * 把一次语料库统计的结果保存为模型文件
+     *
+     * @param stat 统计结果
+     * @param file 模型文件
+     * @throws IOException 写入文件失败
+     */
+    public static void save(CorpusStat stat, Path file) throws IOException {
+        save(stat.getIDF(), stat.getDocNum(), file);
+    }
+
+    /**
+     * 把“词:IDF值”保存为模型文件。先写入临时文件再改名，正在读取旧文件的进程不受影响。
+     *
+     * @param idf    “词:IDF值”映射
+     * @param docNum 文档数
+     * @param file   模型文件
+     * @throws IOException 写入文件失败
+     */
+    public static void save(Map<String, Float> idf, int docNum, Path file) throws IOException {
+        int n = idf.size();
+        byte[][] terms = new byte[n][];
+        float[] values = new float[n];
+        int i = 0;
+
+        for (String term : idf.keySet())
+            terms[i++] = term.getBytes(StandardCharsets.UTF_8);
+
+        Arrays.sort(terms, IdfModel::compare);
+
+        for (i = 0; i < n; i++)
+            values[i] = idf.get(new String(terms[i], StandardCharsets.UTF_8));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (OutputStream os = Files.newOutputStream(tmp); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(docNum);
+
+            for (float value : values)
+                out.writeFloat(value);
+
+            int offset = 0;
+            out.writeInt(offset);
+
+            for (byte[] term : terms) {
+                offset += term.length;
+                out.writeInt(offset);
+            }
+
+            for (byte[] term : terms)
+                out.write(term);
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 按无符号字节比较，与 UTF-8 编码下按码点比较的结果一致
+     */
+    private static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xff) - (b[i] & 0xff);
+
+            if (c != 0)
+                return c;
+        }
+
+        return a.length - b.length;
+    }
+
+    /**
+     * 二分查找词在模型中的下标
+     *
+     * @param term 词
+     * @return 下标，不存在时返回 -1
+     */
+    public int indexOf(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0, high = size - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compareAt(mid, key);
+
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return -1;
+    }
+
+    /**
+     * 直接在映射的内存中比较第 i 个词与 key
+     */
+    private int compareAt(int i, byte[] key) {
+        int start = termsStart + buffer.getInt(offsetsStart + 4 * i);
+        int len = termsStart + buffer.getInt(offsetsStart + 4 * (i + 1)) - start;
+        int n = Math.min(len, key.length);
+
+        for (int j = 0; j < n; j++) {
+            int c = (buffer.get(start + j) & 0xff) - (key[j] & 0xff);
+
+            if (c != 0)
+                return c;
+        }
+
+        return len - key.length;
+    }
+
+    /**
+     * 获取第 i 个词
+     *
+     * @param i 下标
+     * @return 词
+     */
+    public String term(int i) {
+        int start = termsStart + buffer.getInt(offsetsStart + 4 * i);
+        byte[] bytes = new byte[termsStart + buffer.getInt(offsetsStart + 4 * (i + 1)) - start];
+
+        for (int j = 0; j < bytes.length; j++)
+            bytes[j] = buffer.get(start + j);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取第 i 个词的 IDF 值
+     *
+     * @param i 下标
+     * @return IDF 值
+     */
+    public float idfAt(int i) {
+        return buffer.getFloat(HEADER + 4 * i);
+    }
+
+    @Override
+    public float idf(String term) {
+        int i = indexOf(term);
+
+        return i == -1 ? (float) Math.log(docNum) : idfAt(i);
+    }
+
+    /**
+     * 获取词的 IDF 值
+     *
+     * @param term         词
+     * @param defaultValue 词不存在时返回的值
+     * @return IDF 值
+     */
+    public float idf(String term, float defaultValue) {
+        int i = indexOf(term);
+
+        return i == -1 ? defaultValue : idfAt(i);
+    }
+
+    @Override
+    public int getDocNum() {
+        return docNum;
+    }
+
+    /**
+     * 模型中的词数
+     *
+     * @return 词数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 把整个模型读入内存
+     *
+     * @return “词:IDF值”映射
+     */
+    public Map<String, Float> toMap() {
+        Map<String, Float> result = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++)
+            result.put(term(i), idfAt(i));
+
+        return result;
+    }
+}
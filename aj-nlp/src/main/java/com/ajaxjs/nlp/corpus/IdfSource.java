@@ -0,0 +1,21 @@
+package com.ajaxjs.nlp.corpus;
+
+/**
+ * IDF 值的来源，例如当场统计的语料库或保存在磁盘上的模型
+ */
+public interface IdfSource {
+    /**
+     * 获取词的 IDF 值
+     *
+     * @param term 词
+     * @return IDF 值；语料库中没有出现过的词，按只出现在一篇文档中计算
+     */
+    float idf(String term);
+
+    /**
+     * 获取语料库的文档数
+     *
+     * @return 文档数
+     */
+    int getDocNum();
+}
@@ -0,0 +1,291 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.TFIDF;
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 可以增量更新的文档频率（DF）/IDF 模型
+ * <p>
+ * 语料库不断变化时，增加、删除或修改一篇文档只需更新这篇文档中出现的词，代价与文档的词数成正比，不必重新统计整个语料库。
+ * 文档数和每个词的 DF 始终是准确的，IDF 在读取时才根据当前的文档数计算。
+ */
+public class IncrementalIdf implements IdfSource {
+    private final Vocabulary vocabulary;
+
+    private final Segmenter segmenter;
+
+    /**
+     * 每个词的 DF 值，下标为词 id
+     */
+    private int[] df = new int[1024];
+
+    /**
+     * 文档 id 与其包含的不重复的词 id（升序）
+     */
+    private final Map<String, int[]> documents = new HashMap<>();
+
+    /**
+     * 读写锁
+     */
+    private final ReentrantReadWriteLock rwLocker = new ReentrantReadWriteLock();
+
+    public IncrementalIdf() {
+        this(new Vocabulary());
+    }
+
+    /**
+     * 创建模型，与其他计算共用一个词表
+     *
+     * @param vocabulary 词表
+     */
+    public IncrementalIdf(Vocabulary vocabulary) {
+        this(vocabulary, HanLPSegmenter.INSTANCE);
+    }
+
+    /**
+     * 创建模型，使用指定的分词器处理 {@link #addDocument(String, String)} 等传入的文本
+     *
+     * @param vocabulary 词表
+     * @param segmenter  分词器
+     */
+    public IncrementalIdf(Vocabulary vocabulary, Segmenter segmenter) {
+        this.vocabulary = vocabulary;
+        this.segmenter = segmenter;
+    }
+
+    /**
+     * 用一次语料库统计的结果初始化，文档 id 为文件路径
+     *
+     * @param stat 统计结果
+     * @return 模型
+     */
+    public static IncrementalIdf of(CorpusStat stat) {
+        IncrementalIdf model = new IncrementalIdf(stat.getVocabulary());
+
+        for (int i = 0; i < stat.getDocNum(); i++)
+            model.addDocument(stat.getFiles().get(i), stat.getTermTF(i).keys());
+
+        return model;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 增加一篇文档，使用构造时指定的分词器。如果文档 id 已经存在，则等同于 {@link #updateDocument(String, String)}
+     *
+     * @param docId   文档 id
+     * @param content 文档内容
+     */
+    public void addDocument(String docId, String content) {
+        addDocument(docId, TFIDF.segment(content, vocabulary, segmenter));
+    }
+
+    /**
+     * 增加一篇已经分好词的文档。如果文档 id 已经存在，则等同于 {@link #updateDocument(String, int[])}
+     *
+     * @param docId   文档 id
+     * @param termIds 文档中的词 id，可以重复
+     */
+    public void addDocument(String docId, int[] termIds) {
+        updateDocument(docId, termIds);
+    }
+
+    /**
+     * 修改一篇文档，使用构造时指定的分词器
+     *
+     * @param docId   文档 id
+     * @param content 新的文档内容
+     */
+    public void updateDocument(String docId, String content) {
+        updateDocument(docId, TFIDF.segment(content, vocabulary, segmenter));
+    }
+
+    /**
+     * 修改一篇已经分好词的文档，只更新新旧内容之间有差别的词。文档不存在时增加。
+     *
+     * @param docId   文档 id
+     * @param termIds 新内容中的词 id，可以重复
+     */
+    public void updateDocument(String docId, int[] termIds) {
+        int[] terms = distinct(termIds);
+        rwLocker.writeLock().lock();
+
+        try {
+            int[] old = documents.put(docId, terms);
+
+            if (old == null) {
+                for (int id : terms)
+                    increase(id, 1);
+
+                return;
+            }
+
+            // 两个有序数组归并，只有一边出现的词才需要更新
+            int i = 0, j = 0;
+
+            while (i < old.length || j < terms.length) {
+                if (j == terms.length || (i < old.length && old[i] < terms[j]))
+                    increase(old[i++], -1);
+                else if (i == old.length || terms[j] < old[i])
+                    increase(terms[j++], 1);
+                else {
+                    i++;
+                    j++;
+                }
+            }
+        } finally {
+            rwLocker.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一篇文档
+     *
+     * @param docId 文档 id
+     * @return 文档是否存在
+     */
+    public boolean removeDocument(String docId) {
+        rwLocker.writeLock().lock();
+
+        try {
+            int[] old = documents.remove(docId);
+
+            if (old == null)
+                return false;
+
+            for (int id : old)
+                increase(id, -1);
+
+            return true;
+        } finally {
+            rwLocker.writeLock().unlock();
+        }
+    }
+
+    public boolean containsDocument(String docId) {
+        rwLocker.readLock().lock();
+
+        try {
+            return documents.containsKey(docId);
+        } finally {
+            rwLocker.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getDocNum() {
+        rwLocker.readLock().lock();
+
+        try {
+            return documents.size();
+        } finally {
+            rwLocker.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取词的 DF 值
+     *
+     * @param term 词
+     * @return 包含该词的文档数
+     */
+    public int df(String term) {
+        int id = vocabulary.find(term);
+        rwLocker.readLock().lock();
+
+        try {
+            return id == -1 || id >= df.length ? 0 : df[id];
+        } finally {
+            rwLocker.readLock().unlock();
+        }
+    }
+
+    @Override
+    public float idf(String term) {
+        int id = vocabulary.find(term);
+        rwLocker.readLock().lock();
+
+        try {
+            int n = documents.size(), f = id == -1 || id >= df.length ? 0 : df[id];
+
+            if (n == 0) // 还没有文档，log(0) 是 -Infinity，乘以 TF 会得到 NaN
+                return 0;
+
+            return (float) Math.log(n / (float) Math.max(f, 1));
+        } finally {
+            rwLocker.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按当前的文档数计算所有词的 IDF 值
+     *
+     * @return “词:IDF值”映射，只包含至少在一篇文档中出现的词
+     */
+    public Map<String, Float> toMap() {
+        rwLocker.readLock().lock();
+
+        try {
+            float n = documents.size();
+            Map<String, Float> result = new HashMap<>();
+
+            for (int id = 0, size = Math.min(df.length, vocabulary.size()); id < size; id++) {
+                if (df[id] > 0)
+                    result.put(vocabulary.term(id), (float) Math.log(n / df[id]));
+            }
+
+            return result;
+        } finally {
+            rwLocker.readLock().unlock();
+        }
+    }
+
+    /**
+     * 把当前的 IDF 值保存为模型文件
+     *
+     * @param file 模型文件
+     * @throws IOException 写入文件失败
+     */
+    public void save(Path file) throws IOException {
+        rwLocker.readLock().lock();
+
+        try {
+            IdfModel.save(toMap(), documents.size(), file);
+        } finally {
+            rwLocker.readLock().unlock();
+        }
+    }
+
+    private void increase(int id, int delta) {
+        if (id >= df.length)
+            df = Arrays.copyOf(df, Math.max(df.length * 2, id + 1));
+
+        df[id] += delta;
+    }
+
+    /**
+     * 去重并排序
+     */
+    private static int[] distinct(int[] termIds) {
+        int[] sorted = termIds.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1])
+                sorted[n++] = sorted[i];
+        }
+
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+}
@@ -0,0 +1,43 @@
+package com.ajaxjs.nlp.corpus;
+
+import java.util.Arrays;
+
+/**
+ * 相似文档的查询结果：文档下标与余弦相似度，按相似度降序排列
+ */
+public class SimilarDocs {
+    private final int[] docIds;
+
+    private final float[] scores;
+
+    SimilarDocs(int[] docIds, float[] scores) {
+        this.docIds = docIds;
+        this.scores = scores;
+    }
+
+    public int size() {
+        return docIds.length;
+    }
+
+    public int getDocId(int i) {
+        return docIds[i];
+    }
+
+    public float getScore(int i) {
+        return scores[i];
+    }
+
+    /**
+     * 获取所有文档下标
+     *
+     * @return 文档下标数组的拷贝
+     */
+    public int[] getDocIds() {
+        return docIds.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "SimilarDocs{docIds=" + Arrays.toString(docIds) + ", scores=" + Arrays.toString(scores) + '}';
+    }
+}
@@ -0,0 +1,274 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.IntTopK;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 文档相似度索引：以词 id 为键的倒排索引，查找与某篇文档最相似的 N 篇文档
+ * <p>
+ * 每个词的倒排表按文档下标升序保存（CSR 格式），查询时只给与查询向量有共同词的文档累加分数，不与所有文档逐一比较。
+ * 文档按下标分成若干段，各段在线程池中并行计算，每段在倒排表中二分查找自己的范围，各自取前 N 名后合并。
+ * 构建后只读，多个线程可以同时查询。
+ */
+public class SimilarityIndex {
+    /**
+     * 每段最少的文档数，文档较少时不值得拆分
+     */
+    private static final int MIN_SHARD_SIZE = 1 << 14;
+
+    private final SparseVector[] docs;
+
+    /**
+     * 每个词的倒排表在 postingDocs 中的起始位置，长度为词数 + 1
+     */
+    private final int[] termOffsets;
+
+    /**
+     * 所有倒排表中的文档下标
+     */
+    private final int[] postingDocs;
+
+    /**
+     * 与 postingDocs 对应的权重
+     */
+    private final float[] postingWeights;
+
+    private final ForkJoinPool pool;
+
+    private final int shardSize;
+
+    private final int shardCount;
+
+    /**
+     * 每个线程复用的累加数组，长度为一段的文档数
+     */
+    private final ThreadLocal<Scratch> scratch;
+
+    public SimilarityIndex(SparseVector[] docs) {
+        this(docs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param docs 所有文档的向量，下标即文档下标
+     * @param pool 执行查询的线程池
+     */
+    public SimilarityIndex(SparseVector[] docs, ForkJoinPool pool) {
+        this.docs = docs;
+        this.pool = pool;
+
+        int termCount = 0;
+        long nnz = 0;
+
+        for (SparseVector v : docs) {
+            if (v.size() > 0)
+                termCount = Math.max(termCount, v.id(v.size() - 1) + 1); // 词 id 升序，最后一个最大
+
+            nnz += v.size();
+        }
+
+        if (nnz > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many postings: " + nnz);
+
+        termOffsets = new int[termCount + 1];
+
+        for (SparseVector v : docs) {
+            for (int i = 0; i < v.size(); i++)
+                termOffsets[v.id(i) + 1]++;
+        }
+
+        for (int t = 0; t < termCount; t++)
+            termOffsets[t + 1] += termOffsets[t];
+
+        postingDocs = new int[(int) nnz];
+        postingWeights = new float[(int) nnz];
+        int[] fill = new int[termCount];
+
+        for (int d = 0; d < docs.length; d++) { // 按文档顺序写入，倒排表自然有序
+            SparseVector v = docs[d];
+
+            for (int i = 0; i < v.size(); i++) {
+                int t = v.id(i), p = termOffsets[t] + fill[t]++;
+                postingDocs[p] = d;
+                postingWeights[p] = v.weight(i);
+            }
+        }
+
+        int shards = Math.min(pool.getParallelism(), (docs.length + MIN_SHARD_SIZE - 1) / MIN_SHARD_SIZE);
+        shardCount = Math.max(shards, 1);
+        shardSize = Math.max((docs.length + shardCount - 1) / shardCount, 1);
+        scratch = ThreadLocal.withInitial(() -> new Scratch(shardSize));
+    }
+
+    /**
+     * 由语料库统计结果构建索引，文档下标与 {@link CorpusStat#getFiles()} 对应
+     *
+     * @param stat 统计结果
+     * @return 索引
+     */
+    public static SimilarityIndex of(CorpusStat stat) {
+        return new SimilarityIndex(stat.getVectors());
+    }
+
+    public int getDocNum() {
+        return docs.length;
+    }
+
+    public SparseVector getVector(int docId) {
+        return docs[docId];
+    }
+
+    /**
+     * 查找与某篇文档最相似的 N 篇文档，不包括它自己
+     *
+     * @param docId 文档下标
+     * @param n     结果数量
+     * @return 按相似度降序排列的文档，只包括与它有共同词的文档
+     */
+    public SimilarDocs topNSimilar(int docId, int n) {
+        return search(docs[docId], n, docId);
+    }
+
+    /**
+     * 查找与给定向量最相似的 N 篇文档，例如一篇不在索引中的新文档
+     *
+     * @param query 查询向量，词 id 须与建索引时的词表一致
+     * @param n     结果数量
+     * @return 按相似度降序排列的文档
+     */
+    public SimilarDocs topNSimilar(SparseVector query, int n) {
+        return search(query, n, -1);
+    }
+
+    private SimilarDocs search(SparseVector query, int n, int exclude) {
+        if (n <= 0 || query.size() == 0)
+            return new SimilarDocs(new int[0], new float[0]);
+
+        IntTopK top = shardCount == 1 ? scoreShard(query, n, exclude, 0) : pool.invoke(new Search(query, n, exclude, 0, shardCount));
+        int[] ids = new int[top.size()];
+        float[] scores = new float[top.size()];
+        top.drain(ids, scores);
+
+        return new SimilarDocs(ids, scores);
+    }
+
+    /**
+     * 计算一段文档的得分，取前 N 名
+     */
+    private IntTopK scoreShard(SparseVector query, int n, int exclude, int shard) {
+        int lo = shard * shardSize, hi = Math.min(lo + shardSize, docs.length);
+        Scratch s = scratch.get();
+        float[] acc = s.acc;
+        int[] touched = s.touched;
+        int t = 0;
+
+        for (int i = 0; i < query.size(); i++) {
+            int term = query.id(i);
+
+            if (term >= termOffsets.length - 1)
+                continue;
+
+            float qw = query.weight(i);
+            int end = termOffsets[term + 1];
+            int p = shardCount == 1 ? termOffsets[term] : lowerBound(postingDocs, termOffsets[term], end, lo);
+
+            for (; p < end; p++) {
+                int d = postingDocs[p];
+
+                if (d >= hi)
+                    break;
+
+                int local = d - lo;
+                float v = acc[local];
+
+                if (v == 0) // 第一次遇到这篇文档
+                    touched[t++] = local;
+
+                acc[local] = v + qw * postingWeights[p];
+            }
+        }
+
+        IntTopK top = new IntTopK(n);
+
+        for (int k = 0; k < t; k++) { // 只遍历累加过的文档，同时清零以便下次复用
+            int local = touched[k];
+
+            if (local + lo != exclude)
+                top.offer(local + lo, acc[local]);
+
+            acc[local] = 0;
+        }
+
+        return top;
+    }
+
+    /**
+     * 在 [from, to) 中查找第一个不小于 key 的位置
+     */
+    private static int lowerBound(int[] a, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+
+            if (a[mid] < key)
+                from = mid + 1;
+            else
+                to = mid;
+        }
+
+        return from;
+    }
+
+    private static class Scratch {
+        final float[] acc;
+
+        final int[] touched;
+
+        Scratch(int size) {
+            acc = new float[size];
+            touched = new int[size];
+        }
+    }
+
+    /**
+     * 并行计算若干段，返回合并后的前 N 名
+     */
+    private class Search extends RecursiveTask<IntTopK> {
+        private static final long serialVersionUID = 1L;
+
+        private final SparseVector query;
+
+        private final int n;
+
+        private final int exclude;
+
+        private final int from;
+
+        private final int to;
+
+        Search(SparseVector query, int n, int exclude, int from, int to) {
+            this.query = query;
+            this.n = n;
+            this.exclude = exclude;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntTopK compute() {
+            if (to - from == 1)
+                return scoreShard(query, n, exclude, from);
+
+            int mid = (from + to) >>> 1;
+            Search left = new Search(query, n, exclude, from, mid);
+            left.fork();
+            IntTopK right = new Search(query, n, exclude, mid, to).compute();
+            IntTopK l = left.join();
+            l.addAll(right);
+
+            return l;
+        }
+    }
+}
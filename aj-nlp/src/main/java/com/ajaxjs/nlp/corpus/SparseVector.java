@@ -0,0 +1,155 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.IntFloatMap;
+
+import java.util.Arrays;
+
+/**
+ * 文档的稀疏 TF-IDF 向量：按升序排列的词 id 与对应的权重，L2 归一化
+ * <p>
+ * 因为已经归一化，两个向量的点积就是余弦相似度。权重不是正有限数的词（例如出现在所有文档中、IDF 为 0 的词）被丢弃。
+ */
+public class SparseVector {
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+    private final int[] ids;
+
+    private final float[] weights;
+
+    private SparseVector(int[] ids, float[] weights) {
+        this.ids = ids;
+        this.weights = weights;
+    }
+
+    /**
+     * 由“词 id:权重”创建并归一化
+     *
+     * @param weights 以词 id 为键的权重，例如 {@link CorpusStat#getTermTFIDF(int)}
+     * @return 向量
+     */
+    public static SparseVector of(IntFloatMap weights) {
+        int[] ids = weights.keys();
+        Arrays.sort(ids);
+        float[] w = new float[ids.length];
+
+        for (int i = 0; i < ids.length; i++)
+            w[i] = weights.get(ids[i]);
+
+        return normalize(ids, w);
+    }
+
+    /**
+     * 由两个平行数组创建并归一化，词 id 不能重复，不要求有序
+     *
+     * @param ids     词 id
+     * @param weights 权重
+     * @return 向量
+     */
+    public static SparseVector of(int[] ids, float[] weights) {
+        if (ids.length != weights.length)
+            throw new IllegalArgumentException("ids and weights must have the same length");
+
+        long[] packed = new long[ids.length]; // 高 32 位为 id，低 32 位为权重，一起排序
+
+        for (int i = 0; i < ids.length; i++)
+            packed[i] = ((long) ids[i] << 32) | (Float.floatToRawIntBits(weights[i]) & 0xffffffffL);
+
+        Arrays.sort(packed);
+        int[] sortedIds = new int[ids.length];
+        float[] sortedWeights = new float[ids.length];
+
+        for (int i = 0; i < packed.length; i++) {
+            sortedIds[i] = (int) (packed[i] >>> 32);
+            sortedWeights[i] = Float.intBitsToFloat((int) packed[i]);
+
+            if (i > 0 && sortedIds[i] == sortedIds[i - 1])
+                throw new IllegalArgumentException("Duplicated term id: " + sortedIds[i]);
+        }
+
+        return normalize(sortedIds, sortedWeights);
+    }
+
+    private static SparseVector normalize(int[] ids, float[] weights) {
+        double sum = 0;
+        int n = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+            float w = weights[i];
+
+            if (w > 0 && w != Float.POSITIVE_INFINITY) {
+                ids[n] = ids[i];
+                weights[n++] = w;
+                sum += (double) w * w;
+            }
+        }
+
+        if (n == 0)
+            return EMPTY;
+
+        float inv = (float) (1 / Math.sqrt(sum));
+
+        for (int i = 0; i < n; i++)
+            weights[i] *= inv;
+
+        return new SparseVector(n == ids.length ? ids : Arrays.copyOf(ids, n), n == weights.length ? weights : Arrays.copyOf(weights, n));
+    }
+
+    /**
+     * 非零项的个数
+     *
+     * @return 个数
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public float weight(int i) {
+        return weights[i];
+    }
+
+    /**
+     * 获取词 id，升序
+     *
+     * @return 词 id 数组的拷贝
+     */
+    public int[] getIds() {
+        return ids.clone();
+    }
+
+    /**
+     * 获取权重，与 {@link #getIds()} 对应
+     *
+     * @return 权重数组的拷贝
+     */
+    public float[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * 余弦相似度。两个有序数组归并，只计算共同的词
+     *
+     * @param other 另一个向量
+     * @return 相似度，0 ~ 1
+     */
+    public float cosine(SparseVector other) {
+        float sum = 0;
+        int i = 0, j = 0;
+
+        while (i < ids.length && j < other.ids.length) {
+            int a = ids[i], b = other.ids[j];
+
+            if (a < b)
+                i++;
+            else if (a > b)
+                j++;
+            else
+                sum += weights[i++] * other.weights[j++];
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.IntFloatMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 词表：把每个词映射为从 0 开始的连续 int id
+ * <p>
+ * 统计 TF、DF、IDF 时只用 id，以便用 int[]/float[] 或 {@link IntFloatMap} 存储，每个词只保留一份字符串。
+ * 多个线程可以同时向同一个词表登记新词。
+ */
+public class Vocabulary {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * 下标即 id
+     */
+    private volatile String[] terms = new String[1024];
+
+    private volatile int size;
+
+    /**
+     * 获取词的 id，如果是新词就登记一个
+     *
+     * @param term 词
+     * @return 词的 id
+     */
+    public int id(String term) {
+        Integer id = ids.get(term);
+
+        if (id != null)
+            return id;
+
+        synchronized (this) {
+            id = ids.get(term);
+
+            if (id != null)
+                return id;
+
+            int newId = size;
+
+            if (newId == terms.length)
+                terms = Arrays.copyOf(terms, newId * 2);
+
+            terms[newId] = term;
+            ids.put(term, newId);
+            size = newId + 1;
+
+            return newId;
+        }
+    }
+
+    /**
+     * 查找词的 id，不登记新词
+     *
+     * @param term 词
+     * @return 词的 id，不存在时返回 -1
+     */
+    public int find(String term) {
+        Integer id = ids.get(term);
+
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 根据 id 获取词
+     *
+     * @param id 词的 id
+     * @return 词
+     */
+    public String term(int id) {
+        return terms[id];
+    }
+
+    /**
+     * 词表的大小，也就是下一个新词的 id
+     *
+     * @return 词的个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 把一串词转换为 id 序列
+     *
+     * @param words 词列表
+     * @return id 序列
+     */
+    public int[] encode(List<String> words) {
+        int[] result = new int[words.size()];
+
+        for (int i = 0; i < result.length; i++)
+            result[i] = id(words.get(i));
+
+        return result;
+    }
+
+    /**
+     * 把以 id 为键的分数转换为以词为键的 Map
+     *
+     * @param score 以 id 为键的分数
+     * @return “词:分数”映射
+     */
+    public Map<String, Float> toTermMap(IntFloatMap score) {
+        Map<String, Float> result = new HashMap<>(score.size() * 2);
+        score.forEach((id, value) -> result.put(term(id), value));
+
+        return result;
+    }
+
+    /**
+     * 把以 id 为下标的分数数组转换为以词为键的 Map
+     *
+     * @param score 以 id 为下标的分数
+     * @return “词:分数”映射
+     */
+    public Map<String, Float> toTermMap(float[] score) {
+        int n = Math.min(score.length, size);
+        Map<String, Float> result = new HashMap<>(n * 2);
+
+        for (int id = 0; id < n; id++)
+            result.put(term(id), score[id]);
+
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ajaxjs.nlp.fusion;
+
+import com.ajaxjs.nlp.TextRank;
+import com.ajaxjs.nlp.corpus.IdfSource;
+import com.ajaxjs.nlp.textrank.TextRankConfig;
+import com.ajaxjs.nlp.textrank.TokenSequence;
+
+/**
+ * 给一篇文档中的每个词打分，供 {@link RankFusion} 融合
+ * <p>
+ * 所有打分器共用同一次分词的结果 {@link TokenSequence}，不再各自分词。实现类必须是线程安全的。
+ */
+@FunctionalInterface
+public interface KeywordScorer {
+    /**
+     * 打分
+     *
+     * @param seq 文档的词序列
+     * @param idf 语料库的 IDF 值，不需要的打分器可以忽略
+     * @return 每个词的得分，下标为词在 seq 中的编号，越大越重要
+     */
+    float[] score(TokenSequence seq, IdfSource idf);
+
+    /**
+     * TextRank 得分
+     *
+     * @param cfg TextRank 参数
+     * @return 打分器
+     */
+    static KeywordScorer textRank(TextRankConfig cfg) {
+        return (seq, idf) -> TextRank.rank(seq, cfg).getScores();
+    }
+
+    /**
+     * TF-IDF 得分
+     *
+     * @return 打分器
+     */
+    static KeywordScorer tfidf() {
+        return (seq, idf) -> {
+            int[] tokens = seq.getTokens();
+            float[] score = new float[seq.getWordCount()];
+
+            for (int id : tokens)
+                score[id]++;
+
+            for (int id = 0; id < score.length; id++) // TF * IDF
+                score[id] = score[id] / tokens.length * idf.idf(seq.word(id));
+
+            return score;
+        };
+    }
+
+    /**
+     * TextRank 得分乘以 IDF 值，与 {@link com.ajaxjs.nlp.TextRankWithTFIDF#textRankMultiplyIDF(String)} 一致
+     *
+     * @param cfg TextRank 参数
+     * @return 打分器
+     */
+    static KeywordScorer textRankIdf(TextRankConfig cfg) {
+        return (seq, idf) -> {
+            float[] score = TextRank.rank(seq, cfg).getScores();
+
+            for (int id = 0; id < score.length; id++)
+                score[id] *= idf.idf(seq.word(id));
+
+            return score;
+        };
+    }
+}
@@ -0,0 +1,401 @@
+package com.ajaxjs.nlp.fusion;
+
+import com.ajaxjs.nlp.common.IntIntMap;
+import com.ajaxjs.nlp.common.TopK;
+import com.ajaxjs.nlp.corpus.IdfSource;
+import com.ajaxjs.nlp.corpus.Vocabulary;
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
+import com.ajaxjs.nlp.textrank.TokenSequence;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 融合多种关键词算法的结果
+ * <p>
+ * 每篇文档只分词一次，各个 {@link KeywordScorer} 共用得到的 {@link TokenSequence}；每个打分器取得分最高的若干个候选词，
+ * 按 {@link Method} 合并成一个排名。候选词的得分累加在以词编号为下标的数组中，是否已是候选用 BitSet 判断，不做列表查找。
+ * <p>
+ * 整个语料库按 Fork/Join 方式并行计算：需要 IDF 时，第一遍分词的同时统计 DF，第二遍只打分、融合；
+ * 给定现成的 IDF 来源时只需一遍。
+ */
+public class RankFusion {
+    /**
+     * 融合方式
+     */
+    public enum Method {
+        /**
+         * 倒数排名融合（Reciprocal Rank Fusion）：候选词的得分为 Σ 权重 / (60 + 名次)
+         */
+        RRF,
+
+        /**
+         * 加权得分融合：每个打分器的得分先除以其最高分，再按权重累加
+         */
+        WEIGHTED,
+
+        /**
+         * 投票：候选词的得分为包含它的打分器的权重之和；票数相同时，在越靠前的打分器中排名越靠前的词越优先
+         */
+        VOTE
+    }
+
+    /**
+     * RRF 公式中的常数
+     */
+    private static final int RRF_K = 60;
+
+    /**
+     * 子任务不再拆分时处理的文档数
+     */
+    private static final int THRESHOLD = 8;
+
+    private final Method method;
+
+    private final int keywordNumber;
+
+    private final List<Source> sources = new ArrayList<>();
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private Segmenter segmenter = HanLPSegmenter.INSTANCE;
+
+    /**
+     * 创建融合器
+     *
+     * @param method        融合方式
+     * @param keywordNumber 每篇文档的关键词数量
+     */
+    public RankFusion(Method method, int keywordNumber) {
+        if (keywordNumber < 0)
+            throw new IllegalArgumentException("keywordNumber must not be negative: " + keywordNumber);
+
+        this.method = method;
+        this.keywordNumber = keywordNumber;
+    }
+
+    /**
+     * 加入一个打分器，取它的前 2 × 关键词数量 个词作为候选
+     *
+     * @param scorer 打分器
+     * @param weight 权重
+     * @return 当前对象
+     */
+    public RankFusion add(KeywordScorer scorer, float weight) {
+        return add(scorer, weight, keywordNumber * 2);
+    }
+
+    /**
+     * 加入一个打分器。VOTE 方式下加入的顺序决定平票时的优先级
+     *
+     * @param scorer 打分器
+     * @param weight 权重
+     * @param depth  取该打分器得分最高的多少个词作为候选
+     * @return 当前对象
+     */
+    public RankFusion add(KeywordScorer scorer, float weight, int depth) {
+        if (depth < 1)
+            throw new IllegalArgumentException("depth must be positive: " + depth);
+
+        sources.add(new Source(scorer, weight, depth));
+
+        return this;
+    }
+
+    public RankFusion setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    public RankFusion setSegmenter(Segmenter segmenter) {
+        this.segmenter = segmenter;
+        return this;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * 提取目录下每个文件的关键词，IDF 值由同一次分词统计得出
+     *
+     * @param dirPath 目录的路径
+     * @return 文件路径与其关键词的映射
+     */
+    public Map<String, List<String>> fuse(String dirPath) {
+        return fuse(CorpusReader.of(dirPath), null);
+    }
+
+    /**
+     * 提取读取器匹配的每个文件的关键词
+     *
+     * @param reader 语料库读取器
+     * @param idf    IDF 值的来源，例如 {@link com.ajaxjs.nlp.corpus.IdfModel}；为 null 时由同一次分词统计得出
+     * @return 文件路径与其关键词的映射。读取失败的文件交给读取器的错误处理器，不计入文档数，也不出现在结果中
+     */
+    public Map<String, List<String>> fuse(CorpusReader reader, IdfSource idf) {
+        List<String> fileList;
+
+        try (Stream<Path> paths = reader.paths()) {
+            fileList = paths.map(Path::toString).collect(Collectors.toList());
+        }
+
+        List<List<String>> keywords = fuse(fileList.size(), i -> {
+            Document doc = reader.read(Paths.get(fileList.get(i))); // 读取失败时已交给错误处理器
+
+            return doc == null ? null : doc.getContent();
+        }, idf);
+
+        Map<String, List<String>> result = new HashMap<>(fileList.size() * 2);
+
+        for (int i = 0; i < fileList.size(); i++) {
+            if (keywords.get(i) != null)
+                result.put(fileList.get(i), keywords.get(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * 提取每篇文档正文的关键词
+     *
+     * @param docs 文档
+     * @param idf  IDF 值的来源；为 null 时由这些文档统计得出
+     * @return 每篇文档的关键词，顺序与输入一致
+     */
+    public List<List<String>> fuse(List<Document> docs, IdfSource idf) {
+        return fuse(docs.size(), i -> docs.get(i).getContent(), idf);
+    }
+
+    /**
+     * @param content 第 i 篇文档的正文，读取失败时返回 null，这篇文档不计入文档数，结果也为 null
+     */
+    private List<List<String>> fuse(int n, IntFunction<String> content, IdfSource idf) {
+        TokenSequence[] seqs = new TokenSequence[n];
+        List<String>[] result = newResult(n);
+
+        if (idf == null) { // 第一遍：分词并统计 DF
+            Vocabulary vocabulary = new Vocabulary();
+            IntIntMap dfMap = pool.invoke(new Task(content, seqs, vocabulary, null, null, 0, n));
+            int[] df = new int[vocabulary.size()];
+            dfMap.forEach((id, count) -> df[id] = count);
+            int docNum = 0;
+
+            for (TokenSequence seq : seqs) {
+                if (seq != SKIPPED)
+                    docNum++;
+            }
+
+            idf = new DfIdf(vocabulary, df, docNum);
+        }
+
+        pool.invoke(new Task(content, seqs, null, idf, result, 0, n));
+
+        return Arrays.asList(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String>[] newResult(int n) {
+        return new List[n];
+    }
+
+    /**
+     * 融合一篇文档的关键词
+     *
+     * @param seq 文档的词序列
+     * @param idf IDF 值的来源
+     * @return 按融合后的得分降序排列的关键词
+     */
+    public List<String> fuse(TokenSequence seq, IdfSource idf) {
+        int n = seq.getWordCount();
+
+        if (n == 0 || keywordNumber == 0)
+            return Collections.emptyList();
+
+        float[] fused = new float[n];
+        int[] first = new int[n]; // 首次成为候选的次序，用于平票时排序
+        BitSet candidate = new BitSet(n);
+        int order = 0;
+
+        for (Source source : sources) {
+            float[] score = source.scorer.score(seq, idf);
+            int[] ids = TopK.select(score, n, source.depth);
+            float max = ids.length == 0 ? 0 : score[ids[0]];
+
+            for (int r = 0; r < ids.length; r++) {
+                int id = ids[r];
+
+                switch (method) {
+                    case RRF:
+                        fused[id] += source.weight / (RRF_K + r + 1);
+                        break;
+                    case WEIGHTED:
+                        fused[id] += max > 0 ? source.weight * score[id] / max : 0;
+                        break;
+                    default:
+                        fused[id] += source.weight;
+                }
+
+                if (!candidate.get(id)) {
+                    candidate.set(id);
+                    first[id] = order++;
+                }
+            }
+        }
+
+        Integer[] ids = new Integer[candidate.cardinality()];
+
+        for (int id = candidate.nextSetBit(0), i = 0; id >= 0; id = candidate.nextSetBit(id + 1))
+            ids[i++] = id;
+
+        Arrays.sort(ids, (a, b) -> fused[a] != fused[b] ? Float.compare(fused[b], fused[a]) : Integer.compare(first[a], first[b]));
+
+        List<String> result = new ArrayList<>(Math.min(keywordNumber, ids.length));
+
+        for (int i = 0; i < ids.length && i < keywordNumber; i++)
+            result.add(seq.word(ids[i]));
+
+        return result;
+    }
+
+    private static class Source {
+        final KeywordScorer scorer;
+
+        final float weight;
+
+        final int depth;
+
+        Source(KeywordScorer scorer, float weight, int depth) {
+            this.scorer = scorer;
+            this.weight = weight;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * 由同一批文档的 DF 得出的 IDF 值
+     */
+    private static class DfIdf implements IdfSource {
+        private final Vocabulary vocabulary;
+
+        private final int[] df;
+
+        private final int docNum;
+
+        DfIdf(Vocabulary vocabulary, int[] df, int docNum) {
+            this.vocabulary = vocabulary;
+            this.df = df;
+            this.docNum = docNum;
+        }
+
+        @Override
+        public float idf(String term) {
+            int id = vocabulary.find(term);
+
+            return (float) Math.log(docNum / (float) (id == -1 || df[id] == 0 ? 1 : df[id]));
+        }
+
+        @Override
+        public int getDocNum() {
+            return docNum;
+        }
+    }
+
+    /**
+     * 读取失败的文档，第二遍不再读取
+     */
+    private static final TokenSequence SKIPPED = TokenSequence.of(Collections.emptyList());
+
+    /**
+     * 子任务。idf 为 null 时分词并返回这段文档的 DF 表；否则用已有的分词结果打分、融合
+     */
+    private class Task extends RecursiveTask<IntIntMap> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntFunction<String> content;
+
+        /**
+         * 每个子任务只读写自己负责的那一段下标
+         */
+        private final TokenSequence[] seqs;
+
+        private final Vocabulary vocabulary;
+
+        private final IdfSource idf;
+
+        private final List<String>[] result;
+
+        private final int from;
+
+        private final int to;
+
+        Task(IntFunction<String> content, TokenSequence[] seqs, Vocabulary vocabulary, IdfSource idf, List<String>[] result, int from, int to) {
+            this.content = content;
+            this.seqs = seqs;
+            this.vocabulary = vocabulary;
+            this.idf = idf;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IntIntMap compute() {
+            if (to - from <= THRESHOLD) {
+                IntIntMap df = new IntIntMap();
+
+                for (int i = from; i < to; i++) {
+                    if (seqs[i] == null) {
+                        String text = content.apply(i);
+                        seqs[i] = text == null ? SKIPPED : TokenSequence.of(segmenter.words(text));
+                    }
+
+                    if (seqs[i] == SKIPPED) { // 读取失败，结果保持为 null
+                        if (idf != null)
+                            seqs[i] = null;
+                    } else if (idf == null) {
+                        for (String word : seqs[i].getWords()) // 不重复的词
+                            df.increment(vocabulary.id(word));
+                    } else {
+                        result[i] = fuse(seqs[i], idf);
+                        seqs[i] = null; // 融合完即可释放
+                    }
+                }
+
+                return df;
+            }
+
+            int mid = (from + to) >>> 1;
+            Task left = new Task(content, seqs, vocabulary, idf, result, from, mid);
+            left.fork();
+            IntIntMap right = new Task(content, seqs, vocabulary, idf, result, mid, to).compute();
+            IntIntMap l = left.join();
+
+            // 把较小的表合并到较大的表中
+            if (l.size() >= right.size()) {
+                l.addAll(right);
+
+                return l;
+            } else {
+                right.addAll(l);
+
+                return right;
+            }
+        }
+    }
+}
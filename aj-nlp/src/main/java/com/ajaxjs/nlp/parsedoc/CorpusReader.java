@@ -0,0 +1,267 @@
+package com.ajaxjs.nlp.parsedoc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 以流的方式读取语料库
+ * <p>
+ * 用 {@link DirectoryStream} 逐层遍历目录，需要时才读取下一个文件，不会一次性列出所有路径。
+ * 可以用 glob 过滤文件、指定字符集，大文件通过内存映射读取。
+ * 读取出错时交给错误处理器（默认打印到标准错误输出）并跳过该文件，不会中止程序。
+ * <p>
+ * 返回的流持有打开的目录，用完后应当关闭，例如放在 try-with-resources 中。
+ */
+public class CorpusReader {
+    /**
+     * 语料库的根目录，也可以是单个文件
+     */
+    private final Path root;
+
+    private PathMatcher matcher;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    /**
+     * 文件大小达到该值时使用内存映射读取
+     */
+    private long mmapThreshold = 1 << 20;
+
+    private BiConsumer<Path, IOException> errorHandler = (path, e) -> System.err.println("Failed to read " + path + ": " + e);
+
+    /**
+     * 创建只用于读取单个文件的实例，不能调用 {@link #paths()}
+     */
+    public CorpusReader() {
+        this(null);
+    }
+
+    public CorpusReader(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 读取目录下的所有文件，包括子目录
+     *
+     * @param dirPath 目录的路径
+     * @return 读取器
+     */
+    public static CorpusReader of(String dirPath) {
+        if (dirPath == null || dirPath.isEmpty())
+            throw new IllegalArgumentException("The path of the directory can't be empty");
+
+        return new CorpusReader(Paths.get(dirPath));
+    }
+
+    /**
+     * 只读取匹配的文件。不含 / 的模式匹配文件名，否则匹配相对于根目录的路径
+     *
+     * @param glob glob 模式，例如 *.txt 或 {@code news/**.xml}
+     * @return 当前实例
+     */
+    public CorpusReader setGlob(String glob) {
+        matcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return this;
+    }
+
+    public CorpusReader setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    public CorpusReader setMmapThreshold(long mmapThreshold) {
+        this.mmapThreshold = mmapThreshold;
+        return this;
+    }
+
+    public CorpusReader setErrorHandler(BiConsumer<Path, IOException> errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * 遍历所有匹配的文件
+     *
+     * @return 文件路径的流，用完后应当关闭
+     */
+    public Stream<Path> paths() {
+        if (root == null)
+            throw new IllegalStateException("No root directory");
+
+        if (Files.isRegularFile(root))
+            return matches(root) ? Stream.of(root) : Stream.empty();
+
+        Walker walker = new Walker();
+        Spliterator<Path> spliterator = Spliterators.spliteratorUnknownSize(walker, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+
+        return StreamSupport.stream(spliterator, false).onClose(walker::close);
+    }
+
+    /**
+     * 依次读取所有匹配的文件，读取失败的文件会被跳过
+     *
+     * @return 文档的流，用完后应当关闭
+     */
+    public Stream<Document> documents() {
+        return paths().map(this::read).filter(Objects::nonNull);
+    }
+
+    /**
+     * 读取一个文件
+     *
+     * @param path 文件路径
+     * @return 文档，标题为空；读取失败时返回 null
+     */
+    public Document read(Path path) {
+        try {
+            return new Document(path.toString(), "", readContent(path));
+        } catch (IOException e) {
+            errorHandler.accept(path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取文件的全部文本，无法解码的字节替换为替代字符
+     *
+     * @param path 文件路径
+     * @return 文本
+     * @throws IOException 读取失败
+     */
+    public String readContent(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File too large: " + size + " bytes");
+
+            if (size >= mmapThreshold) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+                return charset.decode(buffer).toString();
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) // 文件在读取过程中变短了
+                    break;
+            }
+
+            buffer.flip();
+
+            return charset.decode(buffer).toString();
+        }
+    }
+
+    private boolean matches(Path file) {
+        if (matcher == null)
+            return true;
+
+        return matcher.matches(file.getFileName()) || (root != null && matcher.matches(root.relativize(file)));
+    }
+
+    /**
+     * 深度优先遍历目录，同一时刻只打开当前路径上的各级目录
+     */
+    private class Walker implements Iterator<Path> {
+        private final Deque<DirectoryStream<Path>> streams = new ArrayDeque<>();
+
+        private final Deque<Iterator<Path>> iterators = new ArrayDeque<>();
+
+        /**
+         * 与 iterators 对应的目录，出错时报告给错误处理器
+         */
+        private final Deque<Path> dirs = new ArrayDeque<>();
+
+        private Path next;
+
+        Walker() {
+            open(root);
+        }
+
+        private void open(Path dir) {
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                streams.push(stream);
+                iterators.push(stream.iterator());
+                dirs.push(dir);
+            } catch (IOException e) {
+                errorHandler.accept(dir, e);
+            }
+        }
+
+        private void closeTop() {
+            iterators.pop();
+            dirs.pop();
+
+            try {
+                streams.pop().close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !iterators.isEmpty()) {
+                Iterator<Path> it = iterators.peek();
+                Path p;
+
+                try {
+                    if (!it.hasNext()) {
+                        closeTop();
+                        continue;
+                    }
+
+                    p = it.next();
+                } catch (DirectoryIteratorException e) {
+                    errorHandler.accept(dirs.peek(), e.getCause());
+                    closeTop();
+                    continue;
+                }
+
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+
+                    if (attrs.isDirectory()) {
+                        if (!Files.isSymbolicLink(p)) // 不进入链接的目录，避免循环
+                            open(p);
+                    } else if (attrs.isRegularFile() && matches(p))
+                        next = p;
+                } catch (IOException e) {
+                    errorHandler.accept(p, e);
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            Path p = next;
+            next = null;
+
+            return p;
+        }
+
+        void close() {
+            while (!iterators.isEmpty())
+                closeTop();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ajaxjs.nlp.parsedoc;
+
+/**
+ * 一篇待提取关键词的文档
+ */
+public class Document {
+    /**
+     * 文件路径，不是从文件读取的文档为 null
+     */
+    private final String path;
+
+    /**
+     * 标题
+     */
+    private final String title;
+
+    /**
+     * 正文
+     */
+    private final String content;
+
+    public Document(String title, String content) {
+        this(null, title, content);
+    }
+
+    public Document(String path, String title, String content) {
+        this.path = path;
+        this.title = title == null ? "" : title;
+        this.content = content == null ? "" : content;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
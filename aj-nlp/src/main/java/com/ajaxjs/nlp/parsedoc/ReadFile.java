@@ -11,23 +11,20 @@
  */
 package com.ajaxjs.nlp.parsedoc;
 
-import java.io.File;
+import java.nio.file.Paths;
 
 public class ReadFile {
+    private static final CorpusReader READER = new CorpusReader();
+
     public static String loadFile(String filePath) {
-        File f = new File(filePath);
-        if (!f.isFile()) {
-            System.out.println("The input " + filePath + " is not a file or the file doesn't exist");
-            System.exit(0);
-        }
-        String content = "";
-		
-/*define your own way of loading the your file's content, the following commented two lines 
-is an example of loading the content of a XML file with the Class ParseXML in the same package*/
+        /*by default the file is read as UTF-8 plain text, errors are reported and an empty content is returned.
+        define your own way of loading the your file's content, the following commented two lines
+        is an example of loading the content of a XML file with the Class ParseXML in the same package*/
         //ParseXML parser = new ParseXML();
         //content = parser.parseXML(filePath, "content");
+        Document doc = READER.read(Paths.get(filePath));
 
-        return content;
+        return doc == null ? "" : doc.getContent();
     }
 
 }
@@ -0,0 +1,19 @@
+package com.ajaxjs.nlp.segment;
+
+import org.ansj.domain.Term;
+import org.ansj.splitWord.analysis.DicAnalysis;
+
+/**
+ * Ansj 分词（用户自定义词典优先）。每个线程复用一个 {@link DicAnalysis} 对象
+ */
+public class AnsjSegmenter implements Segmenter {
+    public static final AnsjSegmenter INSTANCE = new AnsjSegmenter();
+
+    private final ThreadLocal<DicAnalysis> analysis = ThreadLocal.withInitial(DicAnalysis::new);
+
+    @Override
+    public void tokens(CharSequence text, TokenConsumer consumer) {
+        for (Term term : analysis.get().parseStr(text.toString()).getTerms())
+            consumer.accept(term.getName(), term.getNatureStr());
+    }
+}
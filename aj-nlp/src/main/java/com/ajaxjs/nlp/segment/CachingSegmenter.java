@@ -0,0 +1,264 @@
+package com.ajaxjs.nlp.segment;
+
+import com.ajaxjs.nlp.common.IntList;
+import com.ajaxjs.nlp.corpus.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带缓存的分词器，包装另一个分词器
+ * <p>
+ * 以文本内容的 128 位哈希为键，缓存分词结果（词序列和词性 id 序列），同样的文本再次分词时不再调用底层分词器。
+ * 适用于转载、修改标题等大量重复内容的场景。
+ * <p>
+ * 按缓存的词总数限制容量，超过时淘汰最久未使用的结果。词直接保存在各条结果中（同一条结果内重复的词共用一个 String），
+ * 不登记到长期存在的词表，结果被淘汰后其中的词随之释放，面对无穷无尽的新文本时内存占用也有上限。
+ * 多个线程可以共用一个实例。
+ */
+public class CachingSegmenter implements Segmenter {
+    private final Segmenter delegate;
+
+    /**
+     * 缓存中所有结果的词数上限
+     */
+    private final long maxTokens;
+
+    /**
+     * 词性表，词性很少且种类固定，用 short 保存
+     */
+    private final Vocabulary natures = new Vocabulary();
+
+    /**
+     * 按访问顺序排列，用于淘汰最久未使用的结果
+     */
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * 缓存中的词总数
+     */
+    private long tokenCount;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 创建带缓存的分词器
+     *
+     * @param delegate  实际执行分词的分词器
+     * @param maxTokens 缓存中所有结果的词数上限，每个词约占 6～10 字节，另加该结果中不重复的词本身
+     */
+    public CachingSegmenter(Segmenter delegate, long maxTokens) {
+        if (maxTokens < 1)
+            throw new IllegalArgumentException("maxTokens must be positive");
+
+        this.delegate = delegate;
+        this.maxTokens = maxTokens;
+    }
+
+    @Override
+    public void tokens(CharSequence text, TokenConsumer consumer) {
+        Entry entry = lookup(text);
+
+        for (int i = 0; i < entry.terms.length; i++)
+            consumer.accept(entry.terms[i], entry.natures[i] == -1 ? null : natures.term(entry.natures[i]));
+    }
+
+    @Override
+    public int[] ids(CharSequence text, Vocabulary target) {
+        Entry entry = lookup(text);
+        int[] ids = new int[entry.terms.length];
+
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = target.id(entry.terms[i]);
+
+        return ids;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 当前缓存的结果数
+     *
+     * @return 结果数
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * 当前缓存的词总数
+     *
+     * @return 词总数
+     */
+    public synchronized long getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * 清空缓存，计数器保持不变
+     */
+    public synchronized void clear() {
+        cache.clear();
+        tokenCount = 0;
+    }
+
+    private Entry lookup(CharSequence text) {
+        Key key = Key.of(text);
+        Entry entry;
+
+        synchronized (this) {
+            entry = cache.get(key);
+        }
+
+        if (entry != null) {
+            hits.increment();
+
+            return entry;
+        }
+
+        misses.increment();
+        entry = segment(text); // 分词在锁外进行，两个线程同时遇到同一篇新文档时都会分词，结果相同
+
+        synchronized (this) {
+            if (entry.terms.length <= maxTokens && cache.put(key, entry) == null) {
+                tokenCount += entry.terms.length;
+                evict();
+            }
+        }
+
+        return entry;
+    }
+
+    private Entry segment(CharSequence text) {
+        List<String> terms = new ArrayList<>(text.length() / 2 + 1);
+        IntList natureIds = new IntList(text.length() / 2 + 1);
+        Map<String, String> distinct = new HashMap<>(); // 同一条结果中重复的词只保留一个对象
+
+        delegate.tokens(text, (term, nature) -> {
+            String t = distinct.putIfAbsent(term, term);
+            terms.add(t == null ? term : t);
+            natureIds.add(nature == null ? -1 : natures.id(nature));
+        });
+
+        short[] n = new short[natureIds.size()];
+
+        for (int i = 0; i < n.length; i++) {
+            int id = natureIds.get(i);
+
+            if (id > Short.MAX_VALUE)
+                throw new IllegalStateException("Too many distinct natures: " + id);
+
+            n[i] = (short) id;
+        }
+
+        return new Entry(terms.toArray(new String[0]), n);
+    }
+
+    private void evict() {
+        Iterator<Entry> it = cache.values().iterator();
+
+        while (tokenCount > maxTokens && it.hasNext()) {
+            tokenCount -= it.next().terms.length;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingSegmenter{delegate=" + delegate.getClass().getSimpleName() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + '}';
+    }
+
+    /**
+     * 一次分词的结果
+     */
+    private static final class Entry {
+        final String[] terms;
+
+        final short[] natures;
+
+        Entry(String[] terms, short[] natures) {
+            this.terms = terms;
+            this.natures = natures;
+        }
+    }
+
+    /**
+     * 文本内容的 128 位哈希，由两个用不同方式计算的 64 位哈希组成，另外记录文本长度
+     */
+    static final class Key {
+        final long h1;
+
+        final long h2;
+
+        final int length;
+
+        Key(long h1, long h2, int length) {
+            this.h1 = h1;
+            this.h2 = h2;
+            this.length = length;
+        }
+
+        static Key of(CharSequence text) {
+            long h1 = 0xcbf29ce484222325L, h2 = 0x9E3779B97F4A7C15L; // FNV-1a 64 位初值，黄金分割常数
+
+            for (int i = 0, len = text.length(); i < len; i++) {
+                char c = text.charAt(i);
+                h1 = (h1 ^ c) * 0x100000001b3L;
+                h2 = Long.rotateLeft(h2 + c * 0xC2B2AE3D27D4EB4FL, 31) * 0x165667B19E3779F9L;
+            }
+
+            return new Key(mix(h1), mix(h2 ^ text.length()), text.length());
+        }
+
+        /**
+         * murmur3 的 64 位收尾混合
+         */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (!(o instanceof Key))
+                return false;
+
+            Key k = (Key) o;
+
+            return h1 == k.h1 && h2 == k.h2 && length == k.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (h1 ^ (h1 >>> 32));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ajaxjs.nlp.segment;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.dictionary.stopword.CoreStopWordDictionary;
+import com.hankcs.hanlp.seg.common.Term;
+
+/**
+ * HanLP 分词。HanLP 默认的分词器本身是线程安全的，所有线程共用
+ */
+public class HanLPSegmenter implements Segmenter {
+    /**
+     * 过滤停用词的实例，与 TFIDF、TextRank 原来的行为一致
+     */
+    public static final HanLPSegmenter INSTANCE = new HanLPSegmenter(true);
+
+    /**
+     * 是否过滤停用词
+     */
+    private final boolean filterStopWords;
+
+    public HanLPSegmenter(boolean filterStopWords) {
+        this.filterStopWords = filterStopWords;
+    }
+
+    @Override
+    public void tokens(CharSequence text, TokenConsumer consumer) {
+        for (Term t : HanLP.segment(text.toString())) {
+            if (!filterStopWords || CoreStopWordDictionary.shouldInclude(t))
+                consumer.accept(t.word, t.nature == null ? null : t.nature.toString());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ajaxjs.nlp.segment;
+
+import org.wltea.analyzer.core.IKSegmenter;
+import org.wltea.analyzer.core.Lexeme;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+/**
+ * IK 分词。直接使用 IK 的核心分词器，不经过 Lucene 的 Analyzer，每个线程复用一个 {@link IKSegmenter} 对象
+ */
+public class IKAnalyzerSegmenter implements Segmenter {
+    /**
+     * 智能切分（最大词长）的实例
+     */
+    public static final IKAnalyzerSegmenter INSTANCE = new IKAnalyzerSegmenter(true);
+
+    private final ThreadLocal<IKSegmenter> segmenter;
+
+    /**
+     * 创建 IK 分词
+     *
+     * @param useSmart true 为智能切分，false 为最细粒度切分
+     */
+    public IKAnalyzerSegmenter(boolean useSmart) {
+        segmenter = ThreadLocal.withInitial(() -> new IKSegmenter(new StringReader(""), useSmart));
+    }
+
+    @Override
+    public void tokens(CharSequence text, TokenConsumer consumer) {
+        IKSegmenter ik = segmenter.get();
+        ik.reset(new StringReader(text.toString()));
+
+        try {
+            Lexeme lexeme;
+
+            while ((lexeme = ik.next()) != null)
+                consumer.accept(lexeme.getLexemeText(), lexeme.getLexemeTypeString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // 读取的是 StringReader，实际上不会发生
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ajaxjs.nlp.segment;
+
+import com.ajaxjs.nlp.corpus.Vocabulary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 词性过滤条件，例如只保留名词
+ * <p>
+ * 分词结果中的词性先登记到一个词性表里转换为 id，过滤条件再按这个词性表编译为位图 {@link Mask}，
+ * 判断一个词是否保留只需一次位运算，不必逐个比较词性字符串。
+ */
+public final class PosFilter {
+    /**
+     * 不过滤
+     */
+    public static final PosFilter ALL = new PosFilter(null);
+
+    /**
+     * 名词、地名、其他专名，与 TfIdfUtil 原来的 onlyNoun 一致
+     */
+    public static final PosFilter NOUN = of("n", "ns", "nz");
+
+    /**
+     * 命名实体：人名、地名、机构名（含音译人名、日语人名、音译地名）
+     */
+    public static final PosFilter NAMED_ENTITY = of("nr", "nrf", "nrj", "ns", "nsf", "nt");
+
+    /**
+     * 保留的词性，null 表示全部保留
+     */
+    private final Set<String> natures;
+
+    private PosFilter(Set<String> natures) {
+        this.natures = natures;
+    }
+
+    /**
+     * 创建过滤条件
+     *
+     * @param natures 保留的词性，写法与所用的分词器一致
+     * @return 过滤条件
+     */
+    public static PosFilter of(String... natures) {
+        return new PosFilter(Collections.unmodifiableSet(new HashSet<>(Arrays.asList(natures))));
+    }
+
+    /**
+     * 保留的词性
+     *
+     * @return 词性集合，不过滤时为 null
+     */
+    public Set<String> getNatures() {
+        return natures;
+    }
+
+    /**
+     * 直接按词性字符串判断，用于没有词性表的场合
+     *
+     * @param nature 词性，可以为 null
+     * @return 是否保留
+     */
+    public boolean accept(String nature) {
+        return natures == null || (nature != null && natures.contains(nature));
+    }
+
+    /**
+     * 按词性表编译为位图。词性表之后又登记的新词性不在位图中，需要重新编译
+     *
+     * @param natureVocabulary 词性表
+     * @return 位图
+     */
+    public Mask compile(Vocabulary natureVocabulary) {
+        if (natures == null)
+            return Mask.ALL;
+
+        long[] bits = new long[(natureVocabulary.size() + 63) >>> 6];
+
+        for (String nature : natures) {
+            int id = natureVocabulary.find(nature);
+
+            if (id != -1)
+                bits[id >>> 6] |= 1L << id;
+        }
+
+        return new Mask(bits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof PosFilter))
+            return false;
+
+        Set<String> other = ((PosFilter) o).natures;
+
+        return natures == null ? other == null : natures.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return natures == null ? 0 : natures.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return natures == null ? "PosFilter{ALL}" : "PosFilter" + natures;
+    }
+
+    /**
+     * 编译后的过滤条件，以词性 id 为下标的位图
+     */
+    public static final class Mask {
+        static final Mask ALL = new Mask(null);
+
+        /**
+         * null 表示全部保留
+         */
+        private final long[] bits;
+
+        private Mask(long[] bits) {
+            this.bits = bits;
+        }
+
+        /**
+         * 判断是否保留
+         *
+         * @param natureId 词性 id，-1 表示没有词性
+         * @return 是否保留
+         */
+        public boolean test(int natureId) {
+            if (bits == null)
+                return true;
+
+            int word = natureId >>> 6;
+
+            return natureId >= 0 && word < bits.length && (bits[word] & (1L << natureId)) != 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ajaxjs.nlp.segment;
+
+import com.ajaxjs.nlp.common.IntList;
+import com.ajaxjs.nlp.corpus.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分词器
+ * <p>
+ * 各提取算法只依赖这个接口，可以按场景选用最快的分词器。实现类必须是线程安全的，
+ * 较重的分词器对象应当在每个线程中复用，而不是每次分词都新建。
+ */
+public interface Segmenter {
+    /**
+     * 分词，结果逐个交给 consumer，不构建中间的列表
+     *
+     * @param text     文本
+     * @param consumer 接收每个词及其词性
+     */
+    void tokens(CharSequence text, TokenConsumer consumer);
+
+    /**
+     * 分词
+     *
+     * @param text 文本
+     * @return 词列表
+     */
+    default List<String> words(CharSequence text) {
+        List<String> words = new ArrayList<>();
+        tokens(text, (term, nature) -> words.add(term));
+
+        return words;
+    }
+
+    /**
+     * 分词并转换为词 id 序列
+     *
+     * @param text       文本
+     * @param vocabulary 词表，新词会登记到其中
+     * @return 词 id 序列
+     */
+    default int[] ids(CharSequence text, Vocabulary vocabulary) {
+        IntList ids = new IntList(text.length() / 2 + 1);
+        tokens(text, (term, nature) -> ids.add(vocabulary.id(term)));
+
+        return ids.toArray();
+    }
+}
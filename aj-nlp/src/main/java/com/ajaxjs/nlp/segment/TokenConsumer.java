@@ -0,0 +1,15 @@
+package com.ajaxjs.nlp.segment;
+
+/**
+ * 逐个接收分词结果
+ */
+@FunctionalInterface
+public interface TokenConsumer {
+    /**
+     * 接收一个词
+     *
+     * @param term   词
+     * @param nature 词性，各分词器的写法不同，例如 HanLP/Ansj 的 "n"、"ns"，IK 的 "CN_WORD"
+     */
+    void accept(String term, String nature);
+}
@@ -0,0 +1,111 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.TextRank;
+import com.ajaxjs.nlp.parsedoc.Document;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 批量提取关键词，多篇文档在线程池中并发计算，结果按输入顺序返回
+ * <p>
+ * 所有参数来自不可变的 {@link TextRankConfig}，不读写 {@link TextRank} 的静态参数，所以可以放心地在多个线程中使用。
+ */
+public class BatchTextRank {
+    private final TextRankConfig config;
+
+    private final ExecutorService executor;
+
+    /**
+     * 同时在计算中的文档数上限，避免输入流很长时堆积太多结果
+     */
+    private final int maxInFlight;
+
+    /**
+     * 创建批量提取器
+     *
+     * @param config      TextRank 参数
+     * @param executor    执行计算的线程池，由调用者负责关闭
+     * @param maxInFlight 同时在计算中的文档数上限，一般取线程数的两到四倍
+     */
+    public BatchTextRank(TextRankConfig config, ExecutorService executor, int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight must be positive");
+
+        this.config = config;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public BatchTextRank(TextRankConfig config, ExecutorService executor) {
+        this(config, executor, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public TextRankConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 提取一批文档的关键词，结果按输入顺序逐个交给 sink
+     *
+     * @param docs 文档流
+     * @param sink 接收每篇文档的关键词，总在调用线程中执行
+     */
+    public void extract(Stream<Document> docs, Consumer<List<String>> sink) {
+        Deque<Future<List<String>>> inFlight = new ArrayDeque<>(maxInFlight);
+        Iterator<Document> it = docs.iterator();
+
+        try {
+            while (it.hasNext()) {
+                Document doc = it.next();
+                inFlight.add(executor.submit(() -> TextRank.getKeyword(doc.getTitle(), doc.getContent(), config)));
+
+                if (inFlight.size() >= maxInFlight)
+                    sink.accept(await(inFlight.poll()));
+            }
+
+            while (!inFlight.isEmpty())
+                sink.accept(await(inFlight.poll()));
+        } finally {
+            for (Future<List<String>> f : inFlight) // 出错时取消还没完成的任务
+                f.cancel(true);
+        }
+    }
+
+    /**
+     * 提取一批文档的关键词
+     *
+     * @param docs 文档列表
+     * @return 每篇文档的关键词，顺序与输入一致
+     */
+    public List<List<String>> extract(List<Document> docs) {
+        List<List<String>> result = new ArrayList<>(docs.size());
+        extract(docs.stream(), result::add);
+
+        return result;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for keywords", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.common.IntIntMap;
+import com.ajaxjs.nlp.common.IntList;
+import com.ajaxjs.nlp.common.TopK;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对不断增长的文本（聊天室、评论串）增量地计算 TextRank
+ * <p>
+ * 每次追加一段文本，只把新出现的共现边加入图中（上一段末尾的几个词与新文本之间的边也算在内），
+ * 然后从上一次的得分出发，只重新计算受影响的节点：某个节点的得分变化超过收敛阈值时，才把它的邻居放入待计算队列。
+ * 因此一次追加的开销取决于新增的文本和它波及的范围，而不是全文的长度。
+ * <p>
+ * 可以让旧的边过期：最近 expireAfter 次追加中都没有再出现的共现关系从图中删除，关键词随之偏向最近的内容。
+ * 不设置过期时，得分与对全文一次性计算 {@link com.ajaxjs.nlp.TextRank#rank(TokenSequence, TextRankConfig)} 的结果相差在收敛阈值的量级。
+ * <p>
+ * 所有方法都已同步，多个线程可以向同一个实例追加文本。
+ */
+public class IncrementalTextRank {
+    private final TextRankConfig config;
+
+    /**
+     * 边在这么多次追加之后仍未再出现则删除，0 表示不过期
+     */
+    private final int expireAfter;
+
+    private final Map<String, Integer> wordId = new HashMap<>();
+
+    private final List<String> words = new ArrayList<>();
+
+    /**
+     * 每个节点的邻居，有效长度为 degree[v]
+     */
+    private int[][] adj = new int[16][];
+
+    private int[] degree = new int[16];
+
+    /**
+     * 边最后一次出现时的追加序号，只记在较小的端点上：lastSeen[min].get(max)
+     */
+    private IntIntMap[] lastSeen = new IntIntMap[16];
+
+    private float[] score = new float[16];
+
+    /**
+     * 每次追加新增或刷新的边，成对保存两个端点，用于过期
+     */
+    private final ArrayDeque<IntList> history = new ArrayDeque<>();
+
+    /**
+     * 上一段文本末尾的词，与下一段开头的词共现
+     */
+    private final int[] tail;
+
+    private int tailSize;
+
+    private int generation;
+
+    private int edgeCount;
+
+    /**
+     * 待重新计算的节点，环形队列。每个节点最多在队列中出现一次，容量与节点数相同即可
+     */
+    private int[] queue = new int[16];
+
+    private int queueHead, queueSize;
+
+    private boolean[] queued = new boolean[16];
+
+    /**
+     * 创建增量计算器，边不过期
+     *
+     * @param config TextRank 参数，使用其中的分词器、窗口、阻尼系数、收敛阈值和关键词数量
+     */
+    public IncrementalTextRank(TextRankConfig config) {
+        this(config, 0);
+    }
+
+    /**
+     * 创建增量计算器
+     *
+     * @param config      TextRank 参数
+     * @param expireAfter 共现关系在最近这么多次追加中都没有出现则从图中删除，0 表示不过期
+     */
+    public IncrementalTextRank(TextRankConfig config, int expireAfter) {
+        if (expireAfter < 0)
+            throw new IllegalArgumentException("expireAfter must not be negative: " + expireAfter);
+
+        this.config = config;
+        this.expireAfter = expireAfter;
+        tail = new int[Math.max(config.getWindow() - 1, 0)];
+    }
+
+    public TextRankConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 分词后追加一段文本
+     *
+     * @param text 文本
+     * @return 本次重新计算的节点次数，用于观察开销
+     */
+    public synchronized int append(String text) {
+        return append(config.getSegmenter().words(text));
+    }
+
+    /**
+     * 追加已经分好词、过滤了停用词的一段文本
+     *
+     * @param wordList 按原文顺序排列的词
+     * @return 本次重新计算的节点次数，用于观察开销
+     */
+    public synchronized int append(List<String> wordList) {
+        int gen = ++generation;
+        IntList added = new IntList();
+        int span = tail.length;
+
+        for (String word : wordList) {
+            int b = id(word);
+
+            for (int i = 0; i < tailSize; i++) {
+                int a = tail[i];
+
+                if (a != b)
+                    link(a, b, gen, added);
+            }
+
+            if (span > 0) { // 滑动窗口，保留最近的 span 个词
+                if (tailSize == span)
+                    System.arraycopy(tail, 1, tail, 0, --tailSize);
+
+                tail[tailSize++] = b;
+            }
+        }
+
+        if (expireAfter > 0) {
+            history.addLast(added);
+
+            if (history.size() > expireAfter)
+                expire(history.removeFirst(), gen - expireAfter);
+        }
+
+        return propagate();
+    }
+
+    /**
+     * 按得分取关键词
+     *
+     * @return 得分最高的若干个词，数量由配置决定
+     */
+    public synchronized List<String> getKeyword() {
+        int[] ids = TopK.select(score, words.size(), config.getKeywordNumber());
+        List<String> result = new ArrayList<>(ids.length);
+
+        for (int id : ids)
+            result.add(words.get(id));
+
+        return result;
+    }
+
+    /**
+     * 当前每个词的得分
+     *
+     * @return “词:得分”映射
+     */
+    public synchronized Map<String, Float> getWordScore() {
+        Map<String, Float> result = new HashMap<>(words.size() * 2);
+
+        for (int i = 0; i < words.size(); i++)
+            result.put(words.get(i), score[i]);
+
+        return result;
+    }
+
+    public synchronized int getWordCount() {
+        return words.size();
+    }
+
+    /**
+     * 当前图中的有向边数，与 {@link WordGraph#getEdgeCount()} 口径一致
+     *
+     * @return 边数
+     */
+    public synchronized int getEdgeCount() {
+        return edgeCount * 2;
+    }
+
+    private int id(String word) {
+        Integer id = wordId.get(word);
+
+        if (id == null) {
+            id = words.size();
+            wordId.put(word, id);
+            words.add(word);
+
+            if (id == score.length) {
+                int capacity = id * 2;
+                adj = Arrays.copyOf(adj, capacity);
+                degree = Arrays.copyOf(degree, capacity);
+                lastSeen = Arrays.copyOf(lastSeen, capacity);
+                score = Arrays.copyOf(score, capacity);
+                queued = Arrays.copyOf(queued, capacity);
+                queue = Arrays.copyOf(queue, capacity); // 追加期间只入队不出队，队头为 0，可以直接复制
+            }
+
+            adj[id] = new int[4];
+            lastSeen[id] = new IntIntMap(4);
+            score[id] = 1f; // 与 RankSolver 冷启动的初始值一致
+            enqueue(id); // 没有邻居时得分为 1 - d
+        }
+
+        return id;
+    }
+
+    /**
+     * 记录一次共现，新的边加入图中
+     */
+    private void link(int a, int b, int gen, IntList added) {
+        int lo = Math.min(a, b), hi = Math.max(a, b);
+        IntIntMap seen = lastSeen[lo];
+        int last = seen.get(hi);
+
+        if (last == gen) // 本次已经记录过
+            return;
+
+        seen.put(hi, gen);
+        added.add(lo);
+        added.add(hi);
+
+        if (last == 0) { // 新边，两个端点的出度都变了
+            addNeighbor(a, b);
+            addNeighbor(b, a);
+            edgeCount++;
+            touch(a);
+            touch(b);
+        }
+    }
+
+    /**
+     * 删除在 gen 之后没有再出现过的边
+     */
+    private void expire(IntList edges, int gen) {
+        for (int i = 0; i < edges.size(); i += 2) {
+            int lo = edges.get(i), hi = edges.get(i + 1);
+
+            if (lastSeen[lo].get(hi) != gen) // 之后又出现过，记录在更新的批次中
+                continue;
+
+            lastSeen[lo].remove(hi);
+            removeNeighbor(lo, hi);
+            removeNeighbor(hi, lo);
+            edgeCount--;
+            touch(lo);
+            touch(hi);
+        }
+    }
+
+    private void addNeighbor(int v, int u) {
+        if (degree[v] == adj[v].length)
+            adj[v] = Arrays.copyOf(adj[v], degree[v] * 2);
+
+        adj[v][degree[v]++] = u;
+    }
+
+    private void removeNeighbor(int v, int u) {
+        int[] list = adj[v];
+
+        for (int i = 0; i < degree[v]; i++) {
+            if (list[i] == u) {
+                list[i] = list[--degree[v]];
+                return;
+            }
+        }
+    }
+
+    /**
+     * 节点的出度变了：它自己和所有邻居都要重新计算
+     */
+    private void touch(int v) {
+        enqueue(v);
+
+        for (int i = 0; i < degree[v]; i++)
+            enqueue(adj[v][i]);
+    }
+
+    private void enqueue(int v) {
+        if (!queued[v]) {
+            queued[v] = true;
+            queue[(queueHead + queueSize++) % queue.length] = v;
+        }
+    }
+
+    /**
+     * 从当前得分出发，逐个重新计算队列中的节点，得分变化超过收敛阈值时把邻居放入队列，直到队列为空
+     *
+     * @return 计算的节点次数
+     */
+    private int propagate() {
+        float d = config.getD(), minDiff = config.getMinDiff();
+        long limit = (long) config.getMaxIter() * words.size(); // 相当于全图迭代 maxIter 轮，防止不收敛时停不下来
+        int updates = 0;
+
+        while (queueSize > 0 && updates < limit) {
+            int v = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+            queued[v] = false;
+            updates++;
+
+            float sum = 0;
+            int[] list = adj[v];
+
+            for (int i = 0; i < degree[v]; i++) {
+                int u = list[i];
+                sum += score[u] / degree[u];
+            }
+
+            float s = (1 - d) + d * sum;
+            float delta = Math.abs(s - score[v]);
+            score[v] = s;
+
+            if (delta > minDiff) {
+                for (int i = 0; i < degree[v]; i++)
+                    enqueue(list[i]);
+            }
+        }
+
+        for (; queueSize > 0; queueSize--) { // 达到上限时留下的节点
+            queued[queue[queueHead]] = false;
+            queueHead = (queueHead + 1) % queue.length;
+        }
+
+        queueHead = 0;
+
+        return updates;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "IncrementalTextRank{words=" + words.size() + ", edges=" + getEdgeCount() + ", generation=" + generation + ", expireAfter=" + expireAfter + '}';
+    }
+}
@@ -0,0 +1,245 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.TextRank;
+import com.ajaxjs.nlp.parsedoc.Document;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把并发到达的提取请求合并为小批次，在专用的线程池中计算
+ * <p>
+ * 请求先进入队列，调度线程取出第一个后最多再等待 maxDelay，凑满 maxBatchSize 个或到时即组成一批，整批交给一个工作线程顺序计算，
+ * 批次之间互不等待。
+ * <p>
+ * 一批之内共享的计算是重复文档：标题和内容都相同的文档只分词、排序一次，结果复制给每个请求。
+ * 热门文章被许多客户端同时请求时，这样可以省掉大部分计算。不同文档之间没有可以共享的计算，等待只是为了凑到更多重复的请求；
+ * 请求很少重复时应当把 maxDelay 设为 0，这时只合并已经在排队的请求，不会增加延迟。
+ * <p>
+ * 所有参数来自不可变的 {@link TextRankConfig}，与 {@link BatchTextRank} 一样可以放心地并发使用。
+ */
+public class MicroBatchTextRank implements Closeable {
+    private final TextRankConfig config;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<Pending> queue;
+
+    private final ExecutorService workers;
+
+    private final Thread dispatcher;
+
+    private volatile boolean closed;
+
+    /**
+     * 实际计算的文档数，重复的文档只算一次
+     */
+    private final LongAdder computed = new LongAdder();
+
+    /**
+     * 创建批处理器
+     *
+     * @param config       TextRank 参数
+     * @param workerCount  工作线程数
+     * @param maxBatchSize 每批最多的文档数
+     * @param maxDelay     第一篇文档到达后最多等待的时间，毫秒；为 0 时只合并已经在排队的请求
+     * @param maxQueued    排队的文档数上限，超过时拒绝新的请求
+     */
+    public MicroBatchTextRank(TextRankConfig config, int workerCount, int maxBatchSize, long maxDelay, int maxQueued) {
+        if (workerCount < 1 || maxBatchSize < 1 || maxDelay < 0 || maxQueued < 1)
+            throw new IllegalArgumentException("Invalid batch settings");
+
+        this.config = config;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+        queue = new LinkedBlockingQueue<>(maxQueued);
+        workers = Executors.newFixedThreadPool(workerCount, namedThreads("textrank-worker-"));
+        dispatcher = namedThreads("textrank-dispatcher-").newThread(this::dispatch);
+        dispatcher.start();
+    }
+
+    /**
+     * 使用默认设置：线程数为 CPU 核数，每批最多 32 篇，最多等待 5 毫秒，最多排队 10000 篇
+     *
+     * @param config TextRank 参数
+     */
+    public MicroBatchTextRank(TextRankConfig config) {
+        this(config, Runtime.getRuntime().availableProcessors(), 32, 5, 10000);
+    }
+
+    public TextRankConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 提交一篇文档
+     *
+     * @param doc 文档
+     * @return 关键词，队列已满或已关闭时以 {@link RejectedExecutionException} 异常结束
+     */
+    public CompletableFuture<List<String>> submit(Document doc) {
+        Pending p = new Pending(doc);
+
+        if (closed || !queue.offer(p))
+            p.result.completeExceptionally(new RejectedExecutionException(closed ? "Batcher is closed" : "Too many pending documents"));
+        else if (closed && queue.remove(p)) // 与 close() 同时发生，调度线程可能已经退出
+            p.result.completeExceptionally(new RejectedExecutionException("Batcher is closed"));
+
+        return p.result;
+    }
+
+    /**
+     * 提交多篇文档，它们与其他请求的文档一起组批
+     *
+     * @param docs 文档列表
+     * @return 每篇文档的关键词，顺序与输入一致
+     */
+    public List<CompletableFuture<List<String>>> submitAll(List<Document> docs) {
+        List<CompletableFuture<List<String>>> result = new ArrayList<>(docs.size());
+
+        for (Document doc : docs)
+            result.add(submit(doc));
+
+        return result;
+    }
+
+    /**
+     * 调度线程：组批并交给工作线程
+     */
+    private void dispatch() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS); // 定时醒来检查是否已关闭
+
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0)
+                        continue;
+
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+
+                    if (next == null)
+                        break;
+
+                    batch.add(next);
+                }
+
+                List<Pending> ready = new ArrayList<>(batch);
+                batch.clear();
+
+                try {
+                    workers.execute(() -> run(ready));
+                } catch (RejectedExecutionException e) {
+                    for (Pending p : ready)
+                        p.result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        RejectedExecutionException e = new RejectedExecutionException("Batcher is closed");
+
+        for (Pending p : batch)
+            p.result.completeExceptionally(e);
+
+        Pending p;
+
+        while ((p = queue.poll()) != null)
+            p.result.completeExceptionally(e);
+    }
+
+    private void run(List<Pending> batch) {
+        Map<List<String>, List<String>> done = new HashMap<>(); // 以标题和内容为键，批内相同的文档只计算一次
+
+        for (Pending p : batch) {
+            if (p.result.isDone()) // 调用方已经取消
+                continue;
+
+            try {
+                List<String> key = Arrays.asList(p.doc.getTitle(), p.doc.getContent());
+                List<String> keywords = done.get(key);
+
+                if (keywords == null) {
+                    keywords = TextRank.getKeyword(p.doc.getTitle(), p.doc.getContent(), config);
+                    computed.increment();
+                    done.put(key, keywords);
+                }
+
+                p.result.complete(new ArrayList<>(keywords)); // 每个请求一份，互不影响
+            } catch (RuntimeException e) {
+                p.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 实际计算的文档数，批内重复的文档只算一次
+     *
+     * @return 文档数
+     */
+    public long getComputedCount() {
+        return computed.sum();
+    }
+
+    /**
+     * 不再接受新的请求，已排队的请求计算完后关闭线程
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        workers.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+
+        return r -> {
+            Thread t = new Thread(r, prefix + n.incrementAndGet());
+            t.setDaemon(true);
+
+            return t;
+        };
+    }
+
+    private static class Pending {
+        final Document doc;
+
+        final CompletableFuture<List<String>> result = new CompletableFuture<>();
+
+        Pending(Document doc) {
+            this.doc = doc;
+        }
+    }
+}
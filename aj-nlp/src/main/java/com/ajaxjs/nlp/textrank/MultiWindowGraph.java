@@ -0,0 +1,220 @@
+package com.ajaxjs.nlp.textrank;
+
+import java.util.Arrays;
+
+/**
+ * 同时支持多种共现窗口大小的词共现图
+ * <p>
+ * 只扫描一次词序列，记录每对共现的词之间的最小距离。窗口为 w 的图就是最小距离不超过 w - 1 的那些边，
+ * 每个节点的邻居按距离分组，组内按节点 id 排好序。窗口变大时只需把每个节点的边界往后移，
+ * 新增的那几组邻居归并到上一个窗口已经排好序的邻居中，不用整行重新排序。
+ */
+public class MultiWindowGraph {
+    /**
+     * 编码边时节点 id 占用的位数
+     */
+    private static final int NODE_BITS = 27;
+
+    /**
+     * 编码边时距离占用的位数
+     */
+    private static final int DIST_BITS = 64 - 2 * NODE_BITS;
+
+    private final int nodeCount;
+
+    private final int maxWindow;
+
+    /**
+     * 每个节点的邻居在 neighbors 中的起始位置，长度为 nodeCount + 1
+     */
+    private final int[] offsets;
+
+    /**
+     * 所有节点的邻居，每个节点内按最小距离升序排列，距离相同的按节点 id 升序
+     */
+    private final int[] neighbors;
+
+    /**
+     * 与 neighbors 对应的最小距离
+     */
+    private final int[] distances;
+
+    private MultiWindowGraph(int nodeCount, int maxWindow, int[] offsets, int[] neighbors, int[] distances) {
+        this.nodeCount = nodeCount;
+        this.maxWindow = maxWindow;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.distances = distances;
+    }
+
+    /**
+     * 根据词 id 序列构建图
+     *
+     * @param tokens    词 id 序列，id 取值为 0 ~ nodeCount - 1
+     * @param nodeCount 节点数
+     * @param maxWindow 最大的共现窗口
+     * @return 图
+     */
+    public static MultiWindowGraph build(int[] tokens, int nodeCount, int maxWindow) {
+        if (nodeCount >= 1 << NODE_BITS || maxWindow >= 1 << DIST_BITS)
+            throw new IllegalArgumentException("Too many words or too large window");
+
+        int span = Math.max(maxWindow - 1, 0);
+        long[] pairs = new long[2 * tokens.length * span];
+        int m = 0;
+
+        for (int i = 0; i < tokens.length; i++) {
+            long a = tokens[i];
+
+            for (int j = i + 1; j < tokens.length && j <= i + span; j++) {
+                long b = tokens[j], dist = j - i;
+
+                if (a == b)
+                    continue;
+
+                // 起点、距离、终点，排序后每个节点的邻居按距离升序，同一对词最先出现的就是最小距离
+                pairs[m++] = (a << (NODE_BITS + DIST_BITS)) | (dist << NODE_BITS) | b;
+                pairs[m++] = (b << (NODE_BITS + DIST_BITS)) | (dist << NODE_BITS) | a;
+            }
+        }
+
+        Arrays.sort(pairs, 0, m);
+
+        long nodeMask = (1L << NODE_BITS) - 1, distMask = (1L << DIST_BITS) - 1;
+        int[] offsets = new int[nodeCount + 1];
+        int[] neighbors = new int[m], distances = new int[m];
+        boolean[] seen = new boolean[nodeCount];
+        int e = 0, from = 0;
+
+        for (int k = 0; k < m; k++) {
+            long p = pairs[k];
+            int a = (int) (p >>> (NODE_BITS + DIST_BITS));
+
+            if (k == 0 || a != (int) (pairs[k - 1] >>> (NODE_BITS + DIST_BITS))) {
+                for (int x = from; x < e; x++) // 换了起点，清除上一个起点的标记
+                    seen[neighbors[x]] = false;
+
+                from = e;
+            }
+
+            int b = (int) (p & nodeMask);
+
+            if (seen[b])
+                continue;
+
+            seen[b] = true;
+            neighbors[e] = b;
+            distances[e++] = (int) ((p >>> NODE_BITS) & distMask);
+            offsets[a + 1]++;
+        }
+
+        for (int v = 0; v < nodeCount; v++)
+            offsets[v + 1] += offsets[v];
+
+        return new MultiWindowGraph(nodeCount, maxWindow, offsets, Arrays.copyOf(neighbors, e), Arrays.copyOf(distances, e));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 按窗口大小依次得到共现图
+     */
+    public class Cursor {
+        /**
+         * 当前窗口下每个节点邻居的结束位置
+         */
+        private final int[] ends = Arrays.copyOf(offsets, nodeCount);
+
+        /**
+         * 当前窗口下每个节点的邻居，按节点 id 排序，与 neighbors 使用同样的 offsets
+         */
+        private final int[] sorted = new int[neighbors.length];
+
+        /**
+         * 一次跨过多个距离时，合并新增的几组邻居用的临时空间
+         */
+        private int[] added = new int[16];
+
+        private int window = 1;
+
+        /**
+         * 得到窗口为 w 的共现图，与 {@link WordGraph#build(int[], int, int)} 的结果相同。
+         * 窗口应当逐渐增大，每次只移动新增的边。
+         *
+         * @param w 窗口大小，不超过构建时的最大窗口
+         * @return 共现图
+         */
+        public WordGraph next(int w) {
+            if (w > maxWindow)
+                throw new IllegalArgumentException("Window " + w + " exceeds the max window " + maxWindow);
+
+            if (w < window) // 窗口变小，从头开始
+                System.arraycopy(offsets, 0, ends, 0, nodeCount);
+
+            window = w;
+
+            int[] subOffsets = new int[nodeCount + 1];
+
+            for (int v = 0; v < nodeCount; v++) {
+                int end = ends[v], limit = offsets[v + 1], newEnd = end;
+
+                while (newEnd < limit && distances[newEnd] < w)
+                    newEnd++;
+
+                if (newEnd > end)
+                    merge(offsets[v], end, newEnd);
+
+                ends[v] = newEnd;
+                subOffsets[v + 1] = subOffsets[v] + newEnd - offsets[v];
+            }
+
+            int[] subNeighbors = new int[subOffsets[nodeCount]];
+
+            for (int v = 0; v < nodeCount; v++) // 与 WordGraph 一样按节点排序，求和顺序一致
+                System.arraycopy(sorted, offsets[v], subNeighbors, subOffsets[v], ends[v] - offsets[v]);
+
+            return new WordGraph(nodeCount, subOffsets, subNeighbors);
+        }
+
+        /**
+         * 把 neighbors[from, to) 中新增的邻居归并到 sorted[start, from) 中，从后往前归并，不需要额外的空间
+         */
+        private void merge(int start, int from, int to) {
+            int[] src = neighbors;
+            int lo = from, j = to - 1;
+
+            if (distances[from] != distances[to - 1]) { // 跨过了多个距离，几组各自有序，先合成一组
+                int k = to - from;
+
+                if (added.length < k)
+                    added = new int[Math.max(k, added.length * 2)];
+
+                System.arraycopy(neighbors, from, added, 0, k);
+                Arrays.sort(added, 0, k);
+                src = added;
+                lo = 0;
+                j = k - 1;
+            }
+
+            int i = from - 1, dst = to - 1;
+
+            while (j >= lo) {
+                if (i >= start && sorted[i] > src[j])
+                    sorted[dst--] = sorted[i--];
+                else
+                    sorted[dst--] = src[j--];
+            }
+        }
+    }
+
+    /**
+     * 创建一个从窗口 1 开始的游标
+     *
+     * @return 游标
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.common.TopK;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把得分靠前、在词序列中相邻的词合并为关键短语
+ * <p>
+ * 先取得分最高的若干个词作为候选，用 BitSet 标记它们的编号；再顺序扫描一遍 {@link TokenSequence}，
+ * 在原文中连续出现的候选词组成一个短语，短语的得分为各个词的得分之和。整个过程只使用已有的词编号序列，不需要再分词。
+ * 词序列是过滤停用词之后的，中间隔着停用词或标点的两个词（{@link TokenSequence#isBreak(int)}）不合并，
+ * 短语总是原文中实际出现过的。
+ * <p>
+ * 中文词直接相连；两个拉丁字母或数字结尾、开头的词之间加一个空格，例如 "machine learning"。
+ * 同一个词连续出现时不合并，例如“数据 数据”仍是短语“数据”。
+ */
+public class PhraseExtractor {
+    /**
+     * 短语默认最多包含的词数
+     */
+    public static final int DEFAULT_MAX_WORDS = 3;
+
+    /**
+     * 提取关键短语，候选词为得分最高的三分之一（至少 k 个），短语最多 {@link #DEFAULT_MAX_WORDS} 个词
+     *
+     * @param seq   词序列
+     * @param score 每个词的得分，下标为词的编号
+     * @param k     要提取的短语数量
+     * @return 按得分降序排列的短语，单个词也可能入选
+     */
+    public static List<String> extract(TokenSequence seq, float[] score, int k) {
+        return extract(seq, score, Math.max(k, seq.getWordCount() / 3), DEFAULT_MAX_WORDS, k);
+    }
+
+    /**
+     * 提取关键短语
+     *
+     * @param seq        词序列
+     * @param score      每个词的得分，下标为词的编号
+     * @param candidates 候选词的个数
+     * @param maxWords   短语最多包含的词数，更长的连续候选词按这个长度切分
+     * @param k          要提取的短语数量
+     * @return 按得分降序排列的短语，单个词也可能入选
+     */
+    public static List<String> extract(TokenSequence seq, float[] score, int candidates, int maxWords, int k) {
+        if (maxWords < 1)
+            throw new IllegalArgumentException("maxWords must be positive: " + maxWords);
+
+        BitSet top = new BitSet(seq.getWordCount());
+
+        for (int id : TopK.select(score, seq.getWordCount(), candidates))
+            top.set(id);
+
+        int[] tokens = seq.getTokens();
+        Map<String, Float> phrases = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+        int length = 0;
+        float sum = 0;
+
+        for (int i = 0; i <= tokens.length; i++) {
+            boolean candidate = i < tokens.length && top.get(tokens[i]);
+            boolean split = length > 0 && candidate && (tokens[i] == tokens[i - 1] || seq.isBreak(i)); // 重复的词，或原文中不相邻
+
+            if (length > 0 && (!candidate || length == maxWords || split)) { // 一个短语结束
+                phrases.put(sb.toString(), sum);
+                sb.setLength(0);
+                length = 0;
+                sum = 0;
+            }
+
+            if (candidate) {
+                String word = seq.word(tokens[i]);
+
+                if (length > 0 && isLatin(sb.charAt(sb.length() - 1)) && !word.isEmpty() && isLatin(word.charAt(0)))
+                    sb.append(' ');
+
+                sb.append(word);
+                sum += score[tokens[i]];
+                length++;
+            }
+        }
+
+        return TopK.select(phrases, k);
+    }
+
+    /**
+     * 是否拉丁字母或数字，这样的两个词相连时需要空格分隔
+     */
+    private static boolean isLatin(char c) {
+        if (c < 0x80)
+            return Character.isLetterOrDigit(c);
+
+        return Character.isLetter(c) && Character.UnicodeScript.of(c) == Character.UnicodeScript.LATIN;
+    }
+}
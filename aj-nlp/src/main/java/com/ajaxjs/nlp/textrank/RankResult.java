@@ -0,0 +1,110 @@
+package com.ajaxjs.nlp.textrank;
+
+import java.util.Arrays;
+
+/**
+ * 一次 TextRank 迭代的结果：每个节点的得分，以及迭代次数、残差等收敛情况，用于根据数据调整阻尼系数和收敛阈值
+ */
+public class RankResult {
+    private final float[] scores;
+
+    private final int iterations;
+
+    private final float[] residuals;
+
+    private final float l1;
+
+    private final float lInf;
+
+    private final boolean converged;
+
+    private final int frozen;
+
+    RankResult(float[] scores, int iterations, float[] residuals, float l1, float lInf, boolean converged, int frozen) {
+        this.scores = scores;
+        this.iterations = iterations;
+        this.residuals = residuals;
+        this.l1 = l1;
+        this.lInf = lInf;
+        this.converged = converged;
+        this.frozen = frozen;
+    }
+
+    /**
+     * 每个节点的得分，下标为词 id
+     *
+     * @return 得分数组，不是拷贝
+     */
+    public float[] getScores() {
+        return scores;
+    }
+
+    /**
+     * 实际迭代的轮数
+     *
+     * @return 轮数
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * 每轮迭代的残差，按 {@link RankSolver} 指定的范数计算
+     *
+     * @return 长度为迭代轮数的数组
+     */
+    public float[] getResiduals() {
+        return residuals.clone();
+    }
+
+    /**
+     * 最后一轮的残差
+     *
+     * @return 残差，没有迭代时为 0
+     */
+    public float getResidual() {
+        return iterations == 0 ? 0 : residuals[iterations - 1];
+    }
+
+    /**
+     * 最后一轮所有节点得分变化的绝对值之和
+     *
+     * @return L1 残差
+     */
+    public float getL1() {
+        return l1;
+    }
+
+    /**
+     * 最后一轮节点得分的最大变化
+     *
+     * @return L∞ 残差
+     */
+    public float getLInf() {
+        return lInf;
+    }
+
+    /**
+     * 是否在最大迭代次数之内收敛
+     *
+     * @return 是否收敛
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * 因提前收敛而不再更新的节点数
+     *
+     * @return 节点数
+     */
+    public int getFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public String toString() {
+        return "RankResult{iterations=" + iterations + ", converged=" + converged + ", l1=" + l1 + ", lInf=" + lInf + ", frozen=" + frozen
+                + ", residuals=" + Arrays.toString(residuals) + '}';
+    }
+}
@@ -0,0 +1,163 @@
+package com.ajaxjs.nlp.textrank;
+
+import java.util.Arrays;
+
+/**
+ * TextRank 的迭代求解器，创建后不可修改
+ * <p>
+ * 可选的策略：
+ * <ul>
+ *     <li>收敛判断用 L∞ 范数（所有节点得分的最大变化）或 L1 范数（变化的绝对值之和）</li>
+ *     <li>Jacobi 迭代（每轮只用上一轮的得分）或 Gauss-Seidel 迭代（就地更新，本轮已算出的新得分立即参与计算）。
+ *     TextRank 的共现图是无向的，Gauss-Seidel 不保持得分总和，实测在词频分布很偏的文档上反而比 Jacobi 多迭代，需要按数据选择</li>
+ *     <li>冻结：连续几轮变化都不超过收敛阈值的节点不再重新计算，只保留它当前的得分参与其他节点的计算</li>
+ * </ul>
+ * 冷启动时所有节点的初始得分为 1，首轮与这个真实的初始值比较，不会因为与默认值比较而白白多迭代。
+ */
+public final class RankSolver {
+    /**
+     * 收敛判断所用的范数
+     */
+    public enum Norm {
+        L1, L_INF
+    }
+
+    /**
+     * Jacobi 迭代，L∞ 范数，不冻结。与原来的迭代方式一致
+     */
+    public static final RankSolver DEFAULT = new RankSolver(Norm.L_INF, false, false);
+
+    /**
+     * Jacobi 迭代，L∞ 范数，冻结已收敛的节点。迭代轮数与 {@link #DEFAULT} 相同，但后几轮只计算少数还在变化的节点，
+     * 结果与 {@link #DEFAULT} 相差在收敛阈值的量级
+     */
+    public static final RankSolver FAST = new RankSolver(Norm.L_INF, false, true);
+
+    /**
+     * 连续这么多轮变化不超过收敛阈值的节点被冻结
+     */
+    private static final int FREEZE_ROUNDS = 3;
+
+    private final Norm norm;
+
+    private final boolean gaussSeidel;
+
+    private final boolean freeze;
+
+    /**
+     * 创建求解器
+     *
+     * @param norm        收敛判断所用的范数
+     * @param gaussSeidel true 为 Gauss-Seidel 迭代，false 为 Jacobi 迭代
+     * @param freeze      是否冻结已收敛的节点
+     */
+    public RankSolver(Norm norm, boolean gaussSeidel, boolean freeze) {
+        this.norm = norm;
+        this.gaussSeidel = gaussSeidel;
+        this.freeze = freeze;
+    }
+
+    public Norm getNorm() {
+        return norm;
+    }
+
+    public boolean isGaussSeidel() {
+        return gaussSeidel;
+    }
+
+    public boolean isFreeze() {
+        return freeze;
+    }
+
+    /**
+     * 迭代计算每个节点的得分
+     *
+     * @param graph   共现图
+     * @param d       阻尼系数
+     * @param maxIter 最大迭代次数
+     * @param minDiff 收敛阈值，一轮迭代的残差不超过该值即停止
+     * @param initial 初始得分，用于热启动，长度不足节点数时其余节点从 1 开始；为 null 时所有节点从 1 开始
+     * @return 得分和收敛情况
+     */
+    public RankResult solve(WordGraph graph, float d, int maxIter, float minDiff, float[] initial) {
+        int n = graph.getNodeCount();
+        int[] offsets = graph.offsets, neighbors = graph.neighbors;
+        float[] invDegree = graph.invDegree;
+
+        float[] score = new float[n];
+        Arrays.fill(score, 1f);
+
+        if (initial != null)
+            System.arraycopy(initial, 0, score, 0, Math.min(initial.length, n));
+
+        float[] out = new float[n]; // 每个节点分给每个邻居的得分
+        float[] next = gaussSeidel ? null : new float[n];
+        byte[] stable = freeze ? new byte[n] : null;
+        int[] active = new int[n]; // 还在更新的节点
+        int activeCount = n;
+
+        for (int v = 0; v < n; v++) {
+            out[v] = score[v] * invDegree[v];
+            active[v] = v;
+        }
+
+        float[] residuals = new float[maxIter];
+        float l1 = 0, lInf = 0;
+        int iter = 0;
+        boolean converged = n == 0;
+
+        while (!converged && iter < maxIter) {
+            if (!gaussSeidel) { // Jacobi：先用上一轮的 out 算出所有新得分
+                for (int i = 0; i < activeCount; i++) {
+                    int v = active[i];
+                    next[v] = rank(v, d, offsets, neighbors, out);
+                }
+            }
+
+            l1 = 0;
+            lInf = 0;
+            int kept = 0;
+
+            for (int i = 0; i < activeCount; i++) {
+                int v = active[i];
+                float s = gaussSeidel ? rank(v, d, offsets, neighbors, out) : next[v];
+                float delta = Math.abs(s - score[v]);
+                score[v] = s;
+                out[v] = s * invDegree[v]; // Jacobi 的新得分已经全部算完，也可以就地更新
+
+                l1 += delta;
+                lInf = Math.max(lInf, delta);
+
+                if (freeze) {
+                    stable[v] = delta <= minDiff ? (byte) (stable[v] + 1) : 0;
+
+                    if (stable[v] >= FREEZE_ROUNDS)
+                        continue; // 冻结，不再放回 active
+                }
+
+                active[kept++] = v;
+            }
+
+            activeCount = kept;
+            float residual = norm == Norm.L1 ? l1 : lInf;
+            residuals[iter++] = residual;
+            converged = residual <= minDiff || activeCount == 0;
+        }
+
+        return new RankResult(score, iter, Arrays.copyOf(residuals, iter), l1, lInf, converged, n - activeCount);
+    }
+
+    private static float rank(int v, float d, int[] offsets, int[] neighbors, float[] out) {
+        float sum = 0;
+
+        for (int e = offsets[v], end = offsets[v + 1]; e < end; e++)
+            sum += out[neighbors[e]];
+
+        return (1 - d) + d * sum;
+    }
+
+    @Override
+    public String toString() {
+        return "RankSolver{norm=" + norm + ", gaussSeidel=" + gaussSeidel + ", freeze=" + freeze + '}';
+    }
+}
@@ -0,0 +1,128 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.segment.HanLPSegmenter;
+import com.ajaxjs.nlp.segment.Segmenter;
+
+/**
+ * TextRank 的参数，创建后不可修改，可以在多个线程之间共享
+ * <p>
+ * 需要不同参数时，用 withXxx() 方法得到一个新的实例。
+ */
+public final class TextRankConfig {
+    /**
+     * 默认参数：阻尼系数 0.85，最多迭代 200 次，收敛阈值 0.0001，提取 5 个关键词，共现窗口为 3，HanLP 分词并过滤停用词
+     */
+    public static final TextRankConfig DEFAULT = new TextRankConfig(0.85f, 200, 0.0001f, 5, 3, HanLPSegmenter.INSTANCE);
+
+    /**
+     * 阻尼系数
+     */
+    private final float d;
+
+    /**
+     * 最大迭代次数
+     */
+    private final int maxIter;
+
+    /**
+     * 收敛阈值，一轮迭代的残差（默认为所有节点得分的最大变化）不超过该值即停止
+     */
+    private final float minDiff;
+
+    /**
+     * 要提取的关键词数量
+     */
+    private final int keywordNumber;
+
+    /**
+     * 共现窗口大小
+     */
+    private final int window;
+
+    /**
+     * 分词器
+     */
+    private final Segmenter segmenter;
+
+    /**
+     * 迭代求解器
+     */
+    private final RankSolver solver;
+
+    public TextRankConfig(float d, int maxIter, float minDiff, int keywordNumber, int window, Segmenter segmenter) {
+        this(d, maxIter, minDiff, keywordNumber, window, segmenter, RankSolver.DEFAULT);
+    }
+
+    public TextRankConfig(float d, int maxIter, float minDiff, int keywordNumber, int window, Segmenter segmenter, RankSolver solver) {
+        if (d <= 0 || d >= 1)
+            throw new IllegalArgumentException("damping factor must be in (0, 1): " + d);
+
+        if (maxIter < 1 || keywordNumber < 0 || window < 1)
+            throw new IllegalArgumentException("maxIter and window must be positive, keywordNumber must not be negative");
+
+        this.d = d;
+        this.maxIter = maxIter;
+        this.minDiff = minDiff;
+        this.keywordNumber = keywordNumber;
+        this.window = window;
+        this.segmenter = segmenter;
+        this.solver = solver;
+    }
+
+    public float getD() {
+        return d;
+    }
+
+    public int getMaxIter() {
+        return maxIter;
+    }
+
+    public float getMinDiff() {
+        return minDiff;
+    }
+
+    public int getKeywordNumber() {
+        return keywordNumber;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public Segmenter getSegmenter() {
+        return segmenter;
+    }
+
+    public RankSolver getSolver() {
+        return solver;
+    }
+
+    public TextRankConfig withKeywordNumber(int keywordNumber) {
+        return new TextRankConfig(d, maxIter, minDiff, keywordNumber, window, segmenter, solver);
+    }
+
+    public TextRankConfig withWindow(int window) {
+        return new TextRankConfig(d, maxIter, minDiff, keywordNumber, window, segmenter, solver);
+    }
+
+    public TextRankConfig withDamping(float d) {
+        return new TextRankConfig(d, maxIter, minDiff, keywordNumber, window, segmenter, solver);
+    }
+
+    public TextRankConfig withConvergence(int maxIter, float minDiff) {
+        return new TextRankConfig(d, maxIter, minDiff, keywordNumber, window, segmenter, solver);
+    }
+
+    public TextRankConfig withSegmenter(Segmenter segmenter) {
+        return new TextRankConfig(d, maxIter, minDiff, keywordNumber, window, segmenter, solver);
+    }
+
+    public TextRankConfig withSolver(RankSolver solver) {
+        return new TextRankConfig(d, maxIter, minDiff, keywordNumber, window, segmenter, solver);
+    }
+
+    @Override
+    public String toString() {
+        return "TextRankConfig{d=" + d + ", maxIter=" + maxIter + ", minDiff=" + minDiff + ", keywordNumber=" + keywordNumber + ", window=" + window + ", segmenter=" + segmenter.getClass().getSimpleName() + ", solver=" + solver + '}';
+    }
+}
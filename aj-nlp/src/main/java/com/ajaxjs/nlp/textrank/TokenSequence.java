@@ -0,0 +1,178 @@
+package com.ajaxjs.nlp.textrank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一篇文档分词、过滤停用词后的词序列
+ * <p>
+ * 每个不同的词按首次出现的顺序编号为 0, 1, 2...，序列中只保存编号，供构建共现图、合并短语等使用。
+ * 由原文创建时还记录每个词与前一个词在原文中是否相邻：中间隔着被过滤掉的停用词、标点等就不相邻，只隔着空白仍算相邻。
+ */
+public class TokenSequence {
+    /**
+     * 下标即词的编号
+     */
+    private final List<String> words;
+
+    /**
+     * 按原文顺序排列的词编号
+     */
+    private final int[] tokens;
+
+    /**
+     * 与 tokens 对应，为 true 时该词与前一个词在原文中不相邻；为 null 时所有词都视为相邻
+     */
+    private final boolean[] breaks;
+
+    public TokenSequence(List<String> words, int[] tokens) {
+        this(words, tokens, null);
+    }
+
+    public TokenSequence(List<String> words, int[] tokens, boolean[] breaks) {
+        this.words = words;
+        this.tokens = tokens;
+        this.breaks = breaks;
+    }
+
+    /**
+     * 根据按原文顺序排列的词创建
+     *
+     * @param wordList 词列表
+     * @return 词序列
+     */
+    public static TokenSequence of(List<String> wordList) {
+        Map<String, Integer> wordId = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        int[] tokens = new int[wordList.size()];
+
+        for (int i = 0; i < tokens.length; i++) {
+            String word = wordList.get(i);
+            Integer id = wordId.get(word);
+
+            if (id == null) {
+                id = words.size();
+                wordId.put(word, id);
+                words.add(word);
+            }
+
+            tokens[i] = id;
+        }
+
+        return new TokenSequence(words, tokens);
+    }
+
+    /**
+     * 根据过滤后的词和原文创建，按顺序在原文中找到每个词，记录相邻的词之间是否隔着别的内容
+     *
+     * @param wordList 过滤后按原文顺序排列的词
+     * @param text     原文
+     * @return 词序列
+     */
+    public static TokenSequence of(List<String> wordList, CharSequence text) {
+        TokenSequence seq = of(wordList);
+        String s = text.toString();
+        boolean[] breaks = new boolean[wordList.size()];
+        int pos = 0, prevEnd = -1;
+
+        for (int i = 0; i < breaks.length; i++) {
+            String word = wordList.get(i);
+            int at = s.indexOf(word, pos);
+
+            if (at < 0) { // 分词器改写了这个词，找不到位置，前后都断开
+                breaks[i] = true;
+                prevEnd = -1;
+                continue;
+            }
+
+            breaks[i] = i > 0 && (prevEnd < 0 || !isBlank(s, prevEnd, at));
+            pos = prevEnd = at + word.length();
+        }
+
+        return new TokenSequence(seq.words, seq.tokens, breaks);
+    }
+
+    private static boolean isBlank(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(s.charAt(i)))
+                return false;
+        }
+
+        return true;
+    }
+
+    public int[] getTokens() {
+        return tokens;
+    }
+
+    /**
+     * 不同词的个数
+     *
+     * @return 词的个数
+     */
+    public int getWordCount() {
+        return words.size();
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+
+    /**
+     * 第 i 个词与前一个词在原文中是否不相邻
+     *
+     * @param i 词在序列中的位置
+     * @return 中间隔着被过滤掉的内容时返回 true
+     */
+    public boolean isBreak(int i) {
+        return breaks != null && breaks[i];
+    }
+
+    /**
+     * 根据编号获取词
+     *
+     * @param id 编号
+     * @return 词
+     */
+    public String word(int id) {
+        return words.get(id);
+    }
+
+    /**
+     * 把以编号为下标的得分转换为“词:得分”映射
+     *
+     * @param score 得分
+     * @return “词:得分”映射
+     */
+    public Map<String, Float> toScoreMap(float[] score) {
+        Map<String, Float> result = new HashMap<>(score.length * 2);
+
+        for (int i = 0; i < score.length; i++)
+            result.put(words.get(i), score[i]);
+
+        return result;
+    }
+
+    /**
+     * 把编号数组转换为词列表
+     *
+     * @param ids 编号
+     * @return 词列表
+     */
+    public List<String> toWords(int[] ids) {
+        List<String> result = new ArrayList<>(ids.length);
+
+        for (int id : ids)
+            result.add(words.get(id));
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenSequence{words=" + words + ", tokens=" + Arrays.toString(tokens) + '}';
+    }
+}
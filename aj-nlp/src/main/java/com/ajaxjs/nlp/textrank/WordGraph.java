@@ -0,0 +1,159 @@
+package com.ajaxjs.nlp.textrank;
+
+import java.util.Arrays;
+
+/**
+ * TextRank 的词共现图，以 CSR（压缩稀疏行）格式保存
+ * <p>
+ * 节点是从 0 开始的词 id，节点 v 的邻居是 {@code neighbors[offsets[v]] ~ neighbors[offsets[v + 1] - 1]}。
+ * 图只构建一次，迭代时只读 int/float 数组，不做任何哈希查找。
+ */
+public class WordGraph {
+    /**
+     * 节点数
+     */
+    private final int nodeCount;
+
+    /**
+     * 每个节点的邻居在 neighbors 中的起始位置，长度为 nodeCount + 1
+     */
+    final int[] offsets;
+
+    /**
+     * 所有节点的邻居
+     */
+    final int[] neighbors;
+
+    /**
+     * 每个节点出度的倒数，出度为 0 时为 0
+     */
+    final float[] invDegree;
+
+    WordGraph(int nodeCount, int[] offsets, int[] neighbors) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        invDegree = new float[nodeCount];
+
+        for (int v = 0; v < nodeCount; v++) {
+            int degree = offsets[v + 1] - offsets[v];
+            invDegree[v] = degree == 0 ? 0f : 1f / degree;
+        }
+    }
+
+    /**
+     * 根据词 id 序列构建共现图：两个不同的词在序列中的距离小于窗口大小，则二者之间有一条边
+     *
+     * @param tokens    词 id 序列，id 取值为 0 ~ nodeCount - 1
+     * @param nodeCount 节点数，即不同词的个数
+     * @param window    共现窗口大小
+     * @return 共现图
+     */
+    public static WordGraph build(int[] tokens, int nodeCount, int window) {
+        int span = Math.max(window - 1, 0);
+        long[] pairs = new long[2 * tokens.length * span];
+        int m = 0;
+
+        for (int i = 0; i < tokens.length; i++) {
+            int a = tokens[i];
+
+            for (int j = i + 1; j < tokens.length && j <= i + span; j++) {
+                int b = tokens[j];
+
+                if (a == b)
+                    continue;
+
+                pairs[m++] = ((long) a << 32) | b;
+                pairs[m++] = ((long) b << 32) | a;
+            }
+        }
+
+        return fromPairs(pairs, m, nodeCount);
+    }
+
+    /**
+     * 根据有向边构建图，重复的边只保留一条
+     *
+     * @param pairs     边，高 32 位为起点，低 32 位为终点
+     * @param m         边数组的有效长度，排序会改变数组内容
+     * @param nodeCount 节点数
+     * @return 图
+     */
+    static WordGraph fromPairs(long[] pairs, int m, int nodeCount) {
+        Arrays.sort(pairs, 0, m);
+
+        int[] offsets = new int[nodeCount + 1];
+        int[] neighbors = new int[m];
+        int e = 0;
+        long last = -1;
+
+        for (int k = 0; k < m; k++) {
+            long p = pairs[k];
+
+            if (p == last)
+                continue;
+
+            last = p;
+            neighbors[e++] = (int) p;
+            offsets[(int) (p >>> 32) + 1]++;
+        }
+
+        for (int v = 0; v < nodeCount; v++)
+            offsets[v + 1] += offsets[v];
+
+        return new WordGraph(nodeCount, offsets, e == m ? neighbors : Arrays.copyOf(neighbors, e));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return neighbors.length;
+    }
+
+    /**
+     * 获取节点的出度
+     *
+     * @param v 节点
+     * @return 出度
+     */
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * 获取节点的邻居
+     *
+     * @param v 节点
+     * @return 邻居数组的拷贝
+     */
+    public int[] neighbors(int v) {
+        return Arrays.copyOfRange(neighbors, offsets[v], offsets[v + 1]);
+    }
+
+    /**
+     * 迭代计算每个节点的得分，使用 {@link RankSolver#DEFAULT}
+     *
+     * @param d       阻尼系数
+     * @param maxIter 最大迭代次数
+     * @param minDiff 收敛条件，两次迭代之间所有节点得分的最大变化不超过该值即停止
+     * @return 每个节点的得分，下标为词 id
+     */
+    public float[] rank(float d, int maxIter, float minDiff) {
+        return rank(d, maxIter, minDiff, null);
+    }
+
+    /**
+     * 从给定的初始得分开始迭代，用于热启动：例如相近的另一个图已经算出的得分
+     *
+     * @param d       阻尼系数
+     * @param maxIter 最大迭代次数
+     * @param minDiff 收敛条件
+     * @param initial 初始得分；为 null 时从头计算
+     * @return 每个节点的得分，下标为词 id
+     */
+    public float[] rank(float d, int maxIter, float minDiff, float[] initial) {
+        return RankSolver.DEFAULT.solve(this, d, maxIter, minDiff, initial).getScores();
+    }
+}
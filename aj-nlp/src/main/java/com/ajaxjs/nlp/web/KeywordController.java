@@ -0,0 +1,114 @@
+package com.ajaxjs.nlp.web;
+
+import com.ajaxjs.nlp.textrank.MicroBatchTextRank;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 关键词提取接口
+ * <p>
+ * 并发到达的请求由 {@link MicroBatchTextRank} 合并为小批次计算。批量接口按输入顺序逐篇输出 JSON，
+ * 前面的文档一算完就写出并 flush，不必等整批都算完。
+ */
+@RestController
+@RequestMapping("/keyword")
+public class KeywordController {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final MicroBatchTextRank batcher;
+
+    public KeywordController(MicroBatchTextRank batcher) {
+        this.batcher = batcher;
+    }
+
+    /**
+     * 提取一篇文档的关键词
+     *
+     * @param title   标题
+     * @param content 正文
+     * @return 关键词
+     */
+    @RequestMapping(method = {RequestMethod.GET, RequestMethod.POST})
+    public List<String> extract(@RequestParam(defaultValue = "") String title, @RequestParam String content) {
+        KeywordRequest req = new KeywordRequest();
+        req.setTitle(title);
+        req.setContent(content);
+
+        return await(batcher.submit(req.toDocument()));
+    }
+
+    /**
+     * 提取多篇文档的关键词，请求体为 [{"title": "...", "content": "..."}, ...]
+     * <p>
+     * 响应为与输入等长的数组，每项是一篇文档的关键词数组；某篇文档计算失败时该项为 null。
+     *
+     * @param docs     文档列表
+     * @param response 响应
+     * @throws IOException 写出响应失败，通常是客户端已断开
+     */
+    @PostMapping("/batch")
+    public void batch(@RequestBody List<KeywordRequest> docs, HttpServletResponse response) throws IOException {
+        List<CompletableFuture<List<String>>> results = new ArrayList<>(docs.size());
+
+        for (KeywordRequest doc : docs) // 先全部提交，与其他请求一起组批
+            results.add(batcher.submit(doc.toDocument()));
+
+        response.setContentType("application/json;charset=UTF-8");
+
+        try (JsonGenerator out = JSON.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+
+            for (CompletableFuture<List<String>> result : results) {
+                List<String> keywords;
+
+                try {
+                    keywords = result.join();
+                } catch (CompletionException e) {
+                    keywords = null;
+                }
+
+                if (keywords == null)
+                    out.writeNull();
+                else {
+                    out.writeStartArray();
+
+                    for (String keyword : keywords)
+                        out.writeString(keyword);
+
+                    out.writeEndArray();
+                }
+
+                out.flush();
+            }
+
+            out.writeEndArray();
+        } finally {
+            for (CompletableFuture<List<String>> result : results) // 客户端断开时放弃还没计算的文档
+                result.cancel(false);
+        }
+    }
+
+    private static List<String> await(CompletableFuture<List<String>> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e; // 例如队列已满时的 RejectedExecutionException
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ajaxjs.nlp.web;
+
+import com.ajaxjs.nlp.parsedoc.Document;
+
+/**
+ * 关键词提取请求中的一篇文档
+ */
+public class KeywordRequest {
+    /**
+     * 标题，可以为空
+     */
+    private String title;
+
+    /**
+     * 正文
+     */
+    private String content;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    Document toDocument() {
+        return new Document(title, content);
+    }
+}
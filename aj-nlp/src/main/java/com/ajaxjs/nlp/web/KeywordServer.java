@@ -0,0 +1,34 @@
+package com.ajaxjs.nlp.web;
+
+import com.ajaxjs.embeded_tomcat.EmbeddedTomcatStarter;
+import com.ajaxjs.nlp.textrank.MicroBatchTextRank;
+import com.ajaxjs.nlp.textrank.TextRankConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+/**
+ * 关键词提取服务的 Spring 配置，通过嵌入式 Tomcat 启动
+ */
+@Configuration
+@EnableWebMvc
+@ComponentScan("com.ajaxjs.nlp.web")
+public class KeywordServer {
+    @Bean(destroyMethod = "close")
+    public MicroBatchTextRank microBatchTextRank() {
+        return new MicroBatchTextRank(TextRankConfig.DEFAULT);
+    }
+
+    /**
+     * 启动服务。端口可以作为第一个参数传入，否则取 application.yml 中的配置
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        if (args.length > 0)
+            EmbeddedTomcatStarter.start(Integer.parseInt(args[0]), KeywordServer.class);
+        else
+            EmbeddedTomcatStarter.start(KeywordServer.class);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ajaxjs.nlp.chinese_word_seg;
 
+import com.ajaxjs.nlp.segment.IKAnalyzerSegmenter;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
@@ -8,6 +9,9 @@ import org.wltea.analyzer.lucene.IKAnalyzer;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 
 public class TestChineseWordSeg {
     @Test
@@ -27,4 +31,14 @@ public class TestChineseWordSeg {
                 System.out.print(te.toString() + "，");
         }
     }
+
+    @Test
+    public void testSegmenter() {
+        String t = "你好，我现在还刚刚接触数据结构，所以还不是太了解!";
+
+        // 同一线程内复用 IK 分词对象，两次结果应一致
+        List<String> words = IKAnalyzerSegmenter.INSTANCE.words(t);
+        assertEquals(words, IKAnalyzerSegmenter.INSTANCE.words(t));
+        System.out.println(words);
+    }
 }
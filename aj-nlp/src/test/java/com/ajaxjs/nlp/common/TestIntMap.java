@@ -0,0 +1,52 @@
+package com.ajaxjs.nlp.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestIntMap {
+    @Test
+    public void testIntIntMap() {
+        IntIntMap map = new IntIntMap(2);
+
+        for (int i = 0; i < 1000; i++) {
+            map.increment(i % 100);
+            map.increment(i % 100);
+        }
+
+        assertEquals(100, map.size());
+        assertEquals(20, map.get(42));
+        assertEquals(0, map.get(4200));
+        assertFalse(map.containsKey(4200));
+
+        IntIntMap other = new IntIntMap();
+        other.put(42, 1);
+        other.put(500, 3);
+        map.addAll(other);
+
+        assertEquals(101, map.size());
+        assertEquals(21, map.get(42));
+        assertEquals(3, map.get(500));
+
+        for (int i = 0; i < 100; i += 2)
+            assertTrue(map.remove(i));
+
+        assertFalse(map.remove(0));
+        assertEquals(51, map.size());
+
+        for (int i = 0; i < 100; i++)
+            assertEquals(i % 2 == 0 ? 0 : 20, map.get(i)); // 删除后其他键仍能找到
+    }
+
+    @Test
+    public void testIntFloatMap() {
+        IntFloatMap map = new IntFloatMap();
+        map.put(7, 0.5f);
+        map.add(7, 0.25f);
+        map.add(9, 1f);
+
+        assertEquals(2, map.size());
+        assertEquals(0.75f, map.get(7), 0.0001);
+        assertEquals(-1f, map.get(8, -1f), 0.0001);
+    }
+}
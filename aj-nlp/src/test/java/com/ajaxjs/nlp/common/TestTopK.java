@@ -0,0 +1,31 @@
+package com.ajaxjs.nlp.common;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TestTopK {
+    @Test
+    public void testSelectMap() {
+        Map<String, Float> score = new HashMap<>();
+        score.put("a", 0.1f);
+        score.put("b", 0.5f);
+        score.put("c", 0.3f);
+        score.put("d", 0.9f);
+        score.put("e", 0.2f);
+
+        assertEquals(Arrays.asList("d", "b", "c"), TopK.select(score, 3));
+        assertEquals(5, TopK.select(score, 10).size());
+        assertTrue(TopK.select(score, 0).isEmpty());
+    }
+
+    @Test
+    public void testSelectArray() {
+        float[] score = {0.3f, 0.8f, 0.1f, 0.5f, 0.7f, 0.2f};
+
+        assertArrayEquals(new int[]{1, 4, 3}, TopK.select(score, score.length, 3));
+        assertArrayEquals(new int[]{1, 0}, TopK.select(score, 3, 2));
+    }
+}
@@ -0,0 +1,51 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.segment.Segmenter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestCorpusTFIDF {
+    @Test
+    public void testSkipUnreadable() throws IOException {
+        Segmenter whitespace = (text, consumer) -> {
+            for (String w : text.toString().split(" "))
+                consumer.accept(w, null);
+        };
+
+        Path root = Files.createTempDirectory("corpus-tfidf");
+        Path a = Files.write(root.resolve("a.txt"), "x y".getBytes(StandardCharsets.UTF_8));
+        Path b = Files.write(root.resolve("b.txt"), "x z".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            List<String> files = Arrays.asList(a.toString(), root.resolve("none.txt").toString(), b.toString());
+            List<Path> errors = new ArrayList<>();
+            CorpusReader reader = new CorpusReader().setErrorHandler((p, e) -> errors.add(p));
+            CorpusStat stat = new CorpusTFIDF(ForkJoinPool.commonPool(), 1, whitespace).analyze(files, reader);
+
+            assertEquals(1, errors.size());
+            assertEquals(root.resolve("none.txt"), errors.get(0));
+            assertEquals(2, stat.getDocNum()); // 读取失败的文件不计入文档数
+            assertEquals(Arrays.asList(a.toString(), b.toString()), stat.getFiles());
+            assertEquals(0, stat.getIDF().get("x"), 0.0001);
+            assertEquals(Math.log(2), stat.getIDF().get("y"), 0.0001);
+            assertEquals(0.5, stat.getTF().get(b.toString()).get("z"), 0.0001);
+        } finally {
+            try (Stream<Path> all = Files.walk(root)) {
+                all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.segment.Segmenter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestExternalTFIDF {
+    @Test
+    public void testSpillAndMerge() throws IOException {
+        Random random = new Random(7);
+        List<Document> docs = new ArrayList<>();
+        Map<String, Integer> expectedDf = new HashMap<>();
+
+        for (int d = 0; d < 3000; d++) {
+            StringBuilder sb = new StringBuilder();
+            Set<String> distinct = new HashSet<>();
+
+            for (int i = 0; i < 100; i++) {
+                String w = "w" + random.nextInt(2000);
+                sb.append(w).append(' ');
+                distinct.add(w);
+            }
+
+            for (String w : distinct)
+                expectedDf.merge(w, 1, Integer::sum);
+
+            docs.add(new Document("doc" + d, "", sb.toString()));
+        }
+
+        Segmenter whitespace = (text, consumer) -> {
+            for (String w : text.toString().trim().split(" "))
+                consumer.accept(w, null);
+        };
+
+        Path workDir = Files.createTempDirectory("external-tfidf");
+        ExternalTFIDF engine = new ExternalTFIDF(workDir, 256 << 10, whitespace); // 很小的预算，写出多块并多轮归并
+
+        try (ExternalCorpusStat stat = engine.analyze(docs.stream())) {
+            assertEquals(3000, stat.getDocNum());
+
+            for (Map.Entry<String, Integer> e : expectedDf.entrySet())
+                assertEquals(Math.log(3000.0 / e.getValue()), stat.idf(e.getKey()), 0.0001);
+
+            List<String> order = new ArrayList<>();
+            stat.forEach((docId, termIds, weights) -> {
+                order.add(docId);
+                float sum = 0;
+
+                for (int i = 0; i < termIds.length; i++) {
+                    assertTrue(i == 0 || termIds[i] > termIds[i - 1]);
+                    sum += weights[i] / stat.getTermIDF()[termIds[i]];
+                }
+
+                assertEquals(1, sum, 0.001); // TF 之和为 1
+            });
+
+            assertEquals(3000, order.size());
+            assertEquals("doc0", order.get(0));
+            assertEquals("doc2999", order.get(2999));
+        }
+
+        try (Stream<Path> files = Files.list(workDir)) {
+            assertEquals(0, files.count()); // 临时文件已删除
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ajaxjs.nlp.corpus;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestIdfModel {
+    @Test
+    public void testSaveAndOpen() throws IOException {
+        Map<String, Float> idf = new HashMap<>();
+        idf.put("自然语言", 1.5f);
+        idf.put("处理", 0.2f);
+        idf.put("TextRank", 2.25f);
+        idf.put("a", 0.1f);
+
+        Path file = Files.createTempFile("idf", ".model");
+
+        try {
+            IdfModel.save(idf, 10, file);
+            IdfModel model = IdfModel.open(file);
+
+            assertEquals(4, model.size());
+            assertEquals(10, model.getDocNum());
+            assertEquals(1.5f, model.idf("自然语言"), 0.0001);
+            assertEquals(2.25f, model.idf("TextRank"), 0.0001);
+            assertEquals(0.1f, model.idf("a"), 0.0001);
+            assertEquals(-1f, model.idf("没有", -1f), 0.0001);
+            assertEquals(Math.log(10), model.idf("没有"), 0.0001);
+            assertEquals(idf, model.toMap());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ajaxjs.nlp.corpus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestIncrementalIdf {
+    @Test
+    public void testAddUpdateRemove() {
+        Vocabulary vocabulary = new Vocabulary();
+        int a = vocabulary.id("a"), b = vocabulary.id("b"), c = vocabulary.id("c");
+        IncrementalIdf model = new IncrementalIdf(vocabulary);
+
+        model.addDocument("1", new int[]{a, b, a});
+        model.addDocument("2", new int[]{b, c});
+        assertEquals(2, model.getDocNum());
+        assertEquals(1, model.df("a"));
+        assertEquals(2, model.df("b"));
+        assertEquals(Math.log(2), model.idf("a"), 0.0001);
+        assertEquals(0, model.idf("b"), 0.0001);
+
+        model.updateDocument("1", new int[]{c});
+        assertEquals(2, model.getDocNum());
+        assertEquals(0, model.df("a"));
+        assertEquals(1, model.df("b"));
+        assertEquals(2, model.df("c"));
+
+        assertTrue(model.removeDocument("2"));
+        assertFalse(model.removeDocument("2"));
+        assertEquals(1, model.getDocNum());
+        assertEquals(0, model.df("b"));
+        assertEquals(1, model.df("c"));
+        assertEquals(1, model.toMap().size());
+    }
+
+    @Test
+    public void testEmpty() {
+        Vocabulary vocabulary = new Vocabulary();
+        int a = vocabulary.id("a");
+        IncrementalIdf model = new IncrementalIdf(vocabulary);
+
+        assertEquals(0, model.getDocNum());
+        assertEquals(0, model.idf("a"), 0);
+        assertEquals(0, model.idf("none"), 0);
+
+        model.addDocument("1", new int[]{a});
+        assertTrue(model.removeDocument("1"));
+        assertEquals(0, model.idf("a"), 0); // 删光之后也不是 -Infinity
+        assertTrue(model.toMap().isEmpty());
+    }
+}
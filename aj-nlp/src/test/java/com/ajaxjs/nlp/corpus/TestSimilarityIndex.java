@@ -0,0 +1,98 @@
+package com.ajaxjs.nlp.corpus;
+
+import com.ajaxjs.nlp.common.IntTopK;
+import com.ajaxjs.nlp.TfIdfUtil;
+import com.ajaxjs.nlp.segment.Segmenter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TestSimilarityIndex {
+    @Test
+    public void testSparseVector() {
+        SparseVector a = SparseVector.of(new int[]{5, 1}, new float[]{4, 3});
+        assertArrayEquals(new int[]{1, 5}, a.getIds());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, a.getWeights(), 0.0001f);
+        assertEquals(1, a.cosine(a), 0.0001);
+
+        SparseVector b = SparseVector.of(new int[]{5, 7}, new float[]{1, 0}); // 权重为 0 的词被丢弃
+        assertEquals(1, b.size());
+        assertEquals(0.8f, a.cosine(b), 0.0001);
+    }
+
+    @Test
+    public void testTopNSimilar() {
+        Random random = new Random(42);
+        SparseVector[] docs = new SparseVector[40000]; // 超过一段的大小，会分段并行查询
+
+        for (int d = 0; d < docs.length; d++) {
+            int[] ids = new int[8];
+            float[] weights = new float[ids.length];
+
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = i * 500 + random.nextInt(500); // 保证不重复
+                weights[i] = random.nextFloat() + 0.01f;
+            }
+
+            docs[d] = SparseVector.of(ids, weights);
+        }
+
+        SimilarityIndex index = new SimilarityIndex(docs, new ForkJoinPool(4));
+
+        for (int q : new int[]{0, 12345, 39999}) {
+            SimilarDocs result = index.topNSimilar(q, 5);
+
+            IntTopK expected = new IntTopK(5); // 与逐一比较的结果一致
+            for (int d = 0; d < docs.length; d++) {
+                float s = docs[q].cosine(docs[d]);
+
+                if (d != q && s > 0)
+                    expected.offer(d, s);
+            }
+
+            int[] ids = new int[5];
+            float[] scores = new float[5];
+            assertEquals(5, expected.drain(ids, scores));
+            assertEquals(5, result.size());
+
+            for (int i = 0; i < 5; i++)
+                assertEquals(scores[i], result.getScore(i), 0.0001);
+        }
+    }
+
+    @Test
+    public void testTfIdfVectors() {
+        Segmenter whitespace = (text, consumer) -> {
+            for (String w : text.toString().split(" "))
+                consumer.accept(w, null);
+        };
+
+        // a 出现在所有文档中，b 出现在一半的文档中
+        List<String> docs = Arrays.asList("a b", "a c", "a b d d", "a e");
+        Vocabulary vocabulary = new Vocabulary();
+        SparseVector[] vectors = new TfIdfUtil(docs, vocabulary, whitespace).vectors();
+        int a = vocabulary.id("a"), b = vocabulary.id("b"), d = vocabulary.id("d");
+
+        for (SparseVector v : vectors) {
+            assertTrue(v.size() > 0);
+
+            for (int k = 0; k < v.size(); k++) {
+                assertTrue(v.getIds()[k] != a); // a 的 IDF 为 0，被丢弃，而不是 -Infinity
+                assertTrue(Float.isFinite(v.getWeights()[k]));
+            }
+        }
+
+        assertArrayEquals(new int[]{b}, vectors[0].getIds()); // DF 为 N/2 的词仍然保留
+
+        // 按 log(N/DF)·TF 计算：b 为 log(4/2)·1/4，d 为 log(4/1)·2/4
+        double wb = Math.log(2) / 4, wd = Math.log(4) / 2, norm = Math.sqrt(wb * wb + wd * wd);
+        assertArrayEquals(new int[]{b, d}, vectors[2].getIds());
+        assertArrayEquals(new float[]{(float) (wb / norm), (float) (wd / norm)}, vectors[2].getWeights(), 0.0001f);
+        assertEquals(wb / norm, vectors[0].cosine(vectors[2]), 0.0001);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ajaxjs.nlp.fusion;
+
+import com.ajaxjs.nlp.parsedoc.CorpusReader;
+import com.ajaxjs.nlp.parsedoc.Document;
+import com.ajaxjs.nlp.segment.Segmenter;
+import com.ajaxjs.nlp.textrank.TokenSequence;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestRankFusion {
+    /**
+     * 按给定的词序打分，排在前面的得分高
+     */
+    private static KeywordScorer fixed(String... order) {
+        List<String> list = Arrays.asList(order);
+
+        return (seq, idf) -> {
+            float[] score = new float[seq.getWordCount()];
+
+            for (int id = 0; id < score.length; id++) {
+                int r = list.indexOf(seq.word(id));
+                score[id] = r == -1 ? 0 : order.length - r;
+            }
+
+            return score;
+        };
+    }
+
+    @Test
+    public void testMethods() {
+        TokenSequence seq = TokenSequence.of(Arrays.asList("a", "b", "c", "d", "e"));
+        KeywordScorer first = fixed("a", "b", "c", "d"), second = fixed("d", "c", "e");
+
+        // 两边都有的 c、d 在前，按第一个打分器的顺序；其余的按第一个打分器的顺序补足
+        List<String> vote = new RankFusion(RankFusion.Method.VOTE, 4).add(first, 1, 4).add(second, 1, 3).fuse(seq, null);
+        assertEquals(Arrays.asList("c", "d", "a", "b"), vote);
+
+        // d: 1/64 + 1/61 > c: 1/63 + 1/62
+        List<String> rrf = new RankFusion(RankFusion.Method.RRF, 2).add(first, 1, 4).add(second, 1, 3).fuse(seq, null);
+        assertEquals(Arrays.asList("d", "c"), rrf);
+
+        List<String> weighted = new RankFusion(RankFusion.Method.WEIGHTED, 1).add(first, 0.1f, 4).add(second, 1, 3).fuse(seq, null);
+        assertEquals(Arrays.asList("d"), weighted);
+    }
+
+    @Test
+    public void testSegmentOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        Segmenter whitespace = (text, consumer) -> {
+            calls.incrementAndGet();
+
+            for (String w : text.toString().trim().split(" "))
+                consumer.accept(w, null);
+        };
+
+        List<Document> docs = new ArrayList<>();
+
+        for (int d = 0; d < 50; d++)
+            docs.add(new Document("doc" + d, "", "common common rare" + d + " rare" + d + " common"));
+
+        List<List<String>> keywords = new RankFusion(RankFusion.Method.RRF, 1)
+                .add(KeywordScorer.tfidf(), 1)
+                .add(KeywordScorer.tfidf(), 1)
+                .setSegmenter(whitespace)
+                .fuse(docs, null);
+
+        assertEquals(50, calls.get()); // 统计 IDF 和两个打分器共用一次分词
+
+        for (int d = 0; d < 50; d++) // common 出现在每篇文档中，IDF 为 0
+            assertEquals(Arrays.asList("rare" + d), keywords.get(d));
+    }
+
+    @Test
+    public void testSkipUnreadable() throws IOException {
+        Segmenter whitespace = (text, consumer) -> {
+            for (String w : text.toString().split(" "))
+                consumer.accept(w, null);
+        };
+
+        Path root = Files.createTempDirectory("fusion");
+        Files.write(root.resolve("a.txt"), "x y".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("b.txt"), "x z".getBytes(StandardCharsets.UTF_8));
+        Path bad = Files.write(root.resolve("bad.txt"), "x w".getBytes(StandardCharsets.UTF_8));
+
+        List<Path> errors = new ArrayList<>();
+        CorpusReader reader = new CorpusReader(root) {
+            @Override
+            public String readContent(Path path) throws IOException {
+                if (path.equals(bad))
+                    throw new IOException("unreadable");
+
+                return super.readContent(path);
+            }
+        }.setErrorHandler((p, e) -> errors.add(p));
+
+        AtomicInteger docNum = new AtomicInteger();
+        KeywordScorer tfidf = KeywordScorer.tfidf();
+        KeywordScorer recordDocNum = (seq, idf) -> {
+            docNum.set(idf.getDocNum());
+            return tfidf.score(seq, idf);
+        };
+
+        try {
+            Map<String, List<String>> keywords = new RankFusion(RankFusion.Method.RRF, 1).add(recordDocNum, 1).setSegmenter(whitespace).fuse(reader, null);
+
+            assertEquals(Collections.singletonList(bad), errors);
+            assertEquals(2, docNum.get()); // 读取失败的文件不计入文档数
+            assertEquals(2, keywords.size()); // 也不出现在结果中
+            assertFalse(keywords.containsKey(bad.toString()));
+            assertEquals(Collections.singletonList("y"), keywords.get(root.resolve("a.txt").toString()));
+        } finally {
+            try (Stream<Path> all = Files.walk(root)) {
+                all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
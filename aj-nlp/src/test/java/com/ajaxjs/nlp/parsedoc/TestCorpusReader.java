@@ -0,0 +1,49 @@
+package com.ajaxjs.nlp.parsedoc;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestCorpusReader {
+    @Test
+    public void testDocuments() throws IOException {
+        Path root = Files.createTempDirectory("corpus");
+        Path sub = Files.createDirectories(root.resolve("sub/deep"));
+        Files.write(root.resolve("a.txt"), "自然语言处理".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("b.xml"), "<doc/>".getBytes(StandardCharsets.UTF_8));
+        Files.write(sub.resolve("c.txt"), "TextRank".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            try (Stream<Path> paths = new CorpusReader(root).paths()) {
+                assertEquals(3, paths.count());
+            }
+
+            Map<String, String> contents;
+
+            try (Stream<Document> docs = new CorpusReader(root).setGlob("*.txt").setMmapThreshold(4).documents()) {
+                contents = docs.collect(Collectors.toMap(d -> root.relativize(Paths.get(d.getPath())).toString().replace('\\', '/'), Document::getContent));
+            }
+
+            assertEquals(2, contents.size());
+            assertEquals("自然语言处理", contents.get("a.txt"));
+            assertEquals("TextRank", contents.get("sub/deep/c.txt"));
+
+            List<Path> errors = new ArrayList<>();
+            assertNull(new CorpusReader().setErrorHandler((p, e) -> errors.add(p)).read(root.resolve("none.txt")));
+            assertEquals(1, errors.size());
+        } finally {
+            try (Stream<Path> all = Files.walk(root)) {
+                all.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ajaxjs.nlp.segment;
+
+import com.ajaxjs.nlp.corpus.Vocabulary;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestCachingSegmenter {
+    @Test
+    public void testCache() {
+        AtomicInteger calls = new AtomicInteger();
+        Segmenter whitespace = (text, consumer) -> { // 按空格分词，并记录调用次数
+            calls.incrementAndGet();
+
+            for (String w : text.toString().split(" "))
+                consumer.accept(w, w.length() > 1 ? "n" : null);
+        };
+
+        CachingSegmenter segmenter = new CachingSegmenter(whitespace, 6);
+        assertEquals(Arrays.asList("a", "bb", "a"), segmenter.words("a bb a"));
+        assertEquals(Arrays.asList("a", "bb", "a"), segmenter.words("a bb a"));
+        assertEquals(1, calls.get());
+        assertEquals(1, segmenter.getHitCount());
+        assertEquals(1, segmenter.getMissCount());
+
+        StringBuilder natures = new StringBuilder();
+        segmenter.tokens("a bb a", (term, nature) -> natures.append(nature).append(','));
+        assertEquals("null,n,null,", natures.toString());
+
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.id("x");
+        assertArrayEquals(new int[]{1, 2, 1}, segmenter.ids("a bb a", vocabulary));
+        assertEquals(1, calls.get());
+
+        // 超过 6 个词的容量，淘汰最久未使用的结果
+        segmenter.words("c d e f");
+        assertEquals(1, segmenter.getEvictionCount());
+        assertEquals(4, segmenter.getTokenCount());
+
+        segmenter.words("a bb a");
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testBoundedUnderEviction() throws InterruptedException {
+        List<WeakReference<String>> first = new ArrayList<>();
+        Segmenter whitespace = (text, consumer) -> {
+            for (String w : text.toString().split(" ")) {
+                String term = new String(w); // 每次分词都产生新的对象，与真实的分词器一样
+
+                if (first.size() < 3)
+                    first.add(new WeakReference<>(term));
+
+                consumer.accept(term, null);
+            }
+        };
+
+        CachingSegmenter segmenter = new CachingSegmenter(whitespace, 300);
+
+        // 源源不断的新文档，每篇都是没见过的词
+        for (int d = 0; d < 10000; d++)
+            segmenter.words("t" + d + "a t" + d + "b t" + d + "c");
+
+        assertTrue(segmenter.getTokenCount() <= 300);
+        assertEquals(100, segmenter.size());
+        assertEquals(9900, segmenter.getEvictionCount());
+
+        // 被淘汰的结果中的词不再被引用，可以被回收
+        for (int i = 0; i < 20 && first.stream().anyMatch(r -> r.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        for (WeakReference<String> r : first)
+            assertNull(r.get());
+    }
+}
@@ -0,0 +1,57 @@
+package com.ajaxjs.nlp.segment;
+
+import com.ajaxjs.nlp.TfIdfUtil;
+import com.ajaxjs.nlp.corpus.Vocabulary;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestPosFilter {
+    @Test
+    public void testMask() {
+        Vocabulary natures = new Vocabulary();
+        int v = natures.id("v"), n = natures.id("n"), ns = natures.id("ns");
+
+        PosFilter.Mask mask = PosFilter.NOUN.compile(natures);
+        assertFalse(mask.test(v));
+        assertTrue(mask.test(n));
+        assertTrue(mask.test(ns));
+        assertFalse(mask.test(-1));
+        assertFalse(mask.test(1000));
+        assertTrue(PosFilter.ALL.compile(natures).test(-1));
+        assertEquals(PosFilter.NOUN, PosFilter.of("nz", "ns", "n"));
+    }
+
+    @Test
+    public void testViews() {
+        AtomicInteger calls = new AtomicInteger();
+        Segmenter segmenter = (text, consumer) -> { // “词/词性”以空格分隔
+            calls.incrementAndGet();
+
+            for (String token : text.toString().split(" ")) {
+                String[] pair = token.split("/");
+                consumer.accept(pair[0], pair[1]);
+            }
+        };
+
+        List<String> docs = Arrays.asList("北京/ns 是/v 首都/n", "上海/ns 是/v 城市/n", "跑/v 跳/v", "北京/ns 跑/v");
+        TfIdfUtil util = new TfIdfUtil(docs, new Vocabulary(), segmenter);
+
+        List<Map<String, Double>> all = util.eval();
+        assertTrue(all.get(0).containsKey("是"));
+
+        List<Map<String, Double>> nouns = util.eval(PosFilter.NOUN);
+        assertFalse(nouns.get(0).containsKey("是"));
+        assertTrue(nouns.get(0).containsKey("首都"));
+        assertTrue(nouns.get(2).isEmpty());
+
+        List<Map<String, Double>> places = util.eval(PosFilter.NAMED_ENTITY);
+        assertEquals(1, places.get(1).size());
+        assertEquals(1, calls.get() / docs.size()); // 三种过滤只分词一次
+    }
+}
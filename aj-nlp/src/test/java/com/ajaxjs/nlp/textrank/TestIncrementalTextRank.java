@@ -0,0 +1,65 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.TextRank;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestIncrementalTextRank {
+    private static List<String> randomWords(Random random, int n, int vocab) {
+        List<String> words = new ArrayList<>(n);
+
+        for (int i = 0; i < n; i++)
+            words.add("w" + (int) (vocab * Math.pow(random.nextDouble(), 2))); // 偏向小编号，模拟高频词
+
+        return words;
+    }
+
+    @Test
+    public void testSameAsBatch() {
+        Random random = new Random(42);
+        IncrementalTextRank ranker = new IncrementalTextRank(TextRankConfig.DEFAULT);
+        List<String> all = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            List<String> chunk = randomWords(random, 40, 3000);
+            all.addAll(chunk);
+            ranker.append(chunk);
+        }
+
+        TokenSequence seq = TokenSequence.of(all);
+        Map<String, Float> expect = seq.toScoreMap(TextRank.rank(seq, TextRankConfig.DEFAULT).getScores());
+        Map<String, Float> actual = ranker.getWordScore();
+
+        assertEquals(expect.size(), actual.size());
+        assertEquals(WordGraph.build(seq.getTokens(), seq.getWordCount(), 3).getEdgeCount(), ranker.getEdgeCount());
+
+        for (Map.Entry<String, Float> e : expect.entrySet())
+            assertEquals(e.getKey(), e.getValue(), actual.get(e.getKey()), 0.01);
+
+        // 小的增量比从头迭代全图少算很多节点
+        int updates = ranker.append(Arrays.asList("w2500", "w2501"));
+        assertTrue(updates < TextRank.rank(seq, TextRankConfig.DEFAULT).getIterations() * ranker.getWordCount() / 2);
+    }
+
+    @Test
+    public void testExpire() {
+        IncrementalTextRank ranker = new IncrementalTextRank(TextRankConfig.DEFAULT.withWindow(2), 1);
+        ranker.append(Arrays.asList("a", "b", "c"));
+        assertEquals(4, ranker.getEdgeCount());
+
+        ranker.append(Arrays.asList("x", "y", "x", "y", "z"));
+        // a-b、b-c 已过期，c-x 是跨段的新边
+        assertEquals(6, ranker.getEdgeCount());
+        assertTrue(ranker.getKeyword().subList(0, 2).containsAll(Arrays.asList("x", "y")));
+
+        Map<String, Float> score = ranker.getWordScore();
+        assertEquals(0.15f, score.get("a"), 0.001); // 孤立的节点
+    }
+}
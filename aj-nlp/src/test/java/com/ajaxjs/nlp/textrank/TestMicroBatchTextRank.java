@@ -0,0 +1,63 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.TextRank;
+import com.ajaxjs.nlp.parsedoc.Document;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class TestMicroBatchTextRank {
+    @Test
+    public void testBatching() throws Exception {
+        List<Document> docs = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++)
+            docs.add(new Document("标题" + i, "程序员 编程 代码 程序员 软件 工程师 代码 " + i + " 算法 数据 结构 程序员"));
+
+        MicroBatchTextRank batcher = new MicroBatchTextRank(TextRankConfig.DEFAULT, 4, 8, 2, 1000);
+        List<CompletableFuture<List<String>>> results = batcher.submitAll(docs);
+
+        for (int i = 0; i < docs.size(); i++) // 顺序与输入一致，结果与直接计算相同
+            assertEquals(TextRank.getKeyword(docs.get(i).getTitle(), docs.get(i).getContent(), TextRankConfig.DEFAULT), results.get(i).get());
+
+        batcher.close();
+
+        try {
+            batcher.submit(docs.get(0)).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testSharedDuplicates() throws Exception {
+        Document hot = new Document("热门", "程序员 编程 代码 程序员 软件 工程师 代码 算法 数据 结构 程序员");
+        List<Document> docs = new ArrayList<>();
+
+        for (int i = 0; i < 40; i++) // 同一篇文章被许多客户端同时请求
+            docs.add(new Document(hot.getTitle(), hot.getContent()));
+
+        MicroBatchTextRank batcher = new MicroBatchTextRank(TextRankConfig.DEFAULT, 2, 64, 50, 1000);
+        List<CompletableFuture<List<String>>> results = batcher.submitAll(docs);
+        List<String> expected = TextRank.getKeyword(hot.getTitle(), hot.getContent(), TextRankConfig.DEFAULT);
+
+        for (CompletableFuture<List<String>> r : results)
+            assertEquals(expected, r.get());
+
+        assertNotSame(results.get(0).get(), results.get(1).get()); // 每个请求一份
+        assertTrue(batcher.getComputedCount() < docs.size() / 2); // 同一批内只计算一次
+        batcher.close();
+
+        // maxDelay 为 0 时不等待，结果不变
+        MicroBatchTextRank noDelay = new MicroBatchTextRank(TextRankConfig.DEFAULT, 2, 64, 0, 1000);
+        assertEquals(expected, noDelay.submit(hot).get());
+        noDelay.close();
+    }
+}
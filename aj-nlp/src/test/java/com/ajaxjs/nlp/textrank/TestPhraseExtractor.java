@@ -0,0 +1,65 @@
+package com.ajaxjs.nlp.textrank;
+
+import com.ajaxjs.nlp.TextRank;
+import com.ajaxjs.nlp.segment.Segmenter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestPhraseExtractor {
+    @Test
+    public void testExtract() {
+        // 机器 学习 模型 训练 数据 机器 学习 算法
+        TokenSequence seq = TokenSequence.of(Arrays.asList("机器", "学习", "模型", "训练", "数据", "机器", "学习", "算法"));
+        float[] score = {0.9f, 0.8f, 0.1f, 0.2f, 0.3f, 0.7f}; // 机器 学习 模型 训练 数据 算法
+
+        List<String> phrases = PhraseExtractor.extract(seq, score, 3, 3, 2);
+        assertEquals(Arrays.asList("机器学习算法", "机器学习"), phrases);
+
+        phrases = PhraseExtractor.extract(seq, score, 3, 2, 3); // 最多两个词，机器学习算法被切开
+        assertEquals(Arrays.asList("机器学习", "算法"), phrases);
+    }
+
+    @Test
+    public void testJoin() {
+        // machine learning 数据 数据 GPU 集群
+        TokenSequence seq = TokenSequence.of(Arrays.asList("machine", "learning", "数据", "数据", "GPU", "集群", "the"));
+        float[] score = {0.9f, 0.8f, 0.5f, 0.6f, 0.4f, 0.1f}; // machine learning 数据 GPU 集群 the
+
+        List<String> phrases = PhraseExtractor.extract(seq, score, 5, 3, 3);
+        assertEquals(Arrays.asList("machine learning数据", "数据GPU集群"), phrases.subList(0, 2)); // 拉丁词之间加空格，相同的词不合并
+        assertFalse(phrases.contains("数据数据"));
+    }
+
+    @Test
+    public void testOriginalAdjacency() {
+        // 机器 学习 的 算法 。 数据 结构 machine learning，“的”和标点被过滤掉
+        String text = "机器学习的算法。数据结构 machine learning";
+        List<String> all = Arrays.asList("机器", "学习", "的", "算法", "。", "数据", "结构", "machine", "learning");
+        Segmenter segmenter = (t, consumer) -> {
+            for (String w : all) {
+                if (!w.equals("的") && !w.equals("。"))
+                    consumer.accept(w, null);
+            }
+        };
+
+        TokenSequence seq = TextRank.tokenize(text, segmenter);
+        assertFalse(seq.isBreak(1)); // 学习
+        assertTrue(seq.isBreak(2)); // 算法，前面隔着“的”
+        assertTrue(seq.isBreak(3)); // 数据，前面隔着句号
+        assertFalse(seq.isBreak(5)); // machine，只隔着空格
+
+        float[] score = new float[seq.getWordCount()];
+        Arrays.fill(score, 1);
+        List<String> phrases = PhraseExtractor.extract(seq, score, score.length, 4, 10);
+
+        assertEquals(3, phrases.size());
+        assertTrue(phrases.containsAll(Arrays.asList("机器学习", "算法", "数据结构machine learning")));
+
+        for (String p : phrases) // 没有跨过停用词或句子的短语
+            assertFalse(p.contains("学习算法") || p.contains("算法数据"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.ajaxjs.nlp.textrank;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestRankSolver {
+    @Test
+    public void testSolvers() {
+        Random random = new Random(1);
+        int[] tokens = new int[2000];
+
+        for (int i = 0; i < tokens.length; i++)
+            tokens[i] = random.nextInt(300);
+
+        WordGraph graph = WordGraph.build(tokens, 300, 3);
+        RankResult jacobi = RankSolver.DEFAULT.solve(graph, 0.85f, 200, 0.0001f, null);
+        RankResult fast = RankSolver.FAST.solve(graph, 0.85f, 200, 0.0001f, null);
+        RankResult l1 = new RankSolver(RankSolver.Norm.L1, true, false).solve(graph, 0.85f, 200, 0.0001f, null);
+
+        assertTrue(jacobi.isConverged());
+        assertTrue(fast.isConverged());
+        assertTrue(fast.getIterations() <= jacobi.getIterations());
+        assertTrue(fast.getFrozen() > 0);
+        assertEquals(jacobi.getIterations(), jacobi.getResiduals().length);
+        assertTrue(jacobi.getResidual() <= 0.0001f);
+        assertTrue(l1.getL1() <= 0.0001f);
+        assertEquals(0, jacobi.getFrozen());
+
+        for (int v = 0; v < 300; v++) {
+            assertEquals(jacobi.getScores()[v], fast.getScores()[v], 0.002);
+            assertEquals(jacobi.getScores()[v], l1.getScores()[v], 0.002);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ajaxjs.nlp.textrank;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestWordGraph {
+    @Test
+    public void testBuild() {
+        // 0 1 2 0 3，窗口为 3
+        WordGraph graph = WordGraph.build(new int[]{0, 1, 2, 0, 3}, 4, 3);
+
+        assertEquals(4, graph.getNodeCount());
+        assertArrayEquals(new int[]{1, 2, 3}, graph.neighbors(0));
+        assertArrayEquals(new int[]{0, 2}, graph.neighbors(1));
+        assertArrayEquals(new int[]{0, 1, 3}, graph.neighbors(2));
+        assertArrayEquals(new int[]{0, 2}, graph.neighbors(3));
+        assertEquals(10, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testRank() {
+        float[] score = WordGraph.build(new int[]{0, 1, 2, 0, 3}, 4, 3).rank(0.85f, 200, 0.0001f);
+
+        assertTrue(score[0] > score[1]);
+        assertEquals(score[1], score[3], 0.0001);
+
+        float sum = 0;
+
+        for (float s : score)
+            sum += s;
+
+        assertEquals(4, sum, 0.01); // 无悬挂节点时得分之和等于节点数
+    }
+
+    @Test
+    public void testMultiWindow() {
+        int[] tokens = {0, 1, 2, 0, 3, 4, 1, 2, 5, 3};
+        MultiWindowGraph.Cursor cursor = MultiWindowGraph.build(tokens, 6, 5).cursor();
+
+        for (int w = 2; w <= 5; w++) {
+            WordGraph expect = WordGraph.build(tokens, 6, w), actual = cursor.next(w);
+            assertEquals(expect.getEdgeCount(), actual.getEdgeCount());
+
+            for (int v = 0; v < 6; v++)
+                assertArrayEquals(expect.neighbors(v), actual.neighbors(v));
+        }
+    }
+
+    @Test
+    public void testMultiWindowRandom() {
+        Random random = new Random(11);
+        int[] tokens = new int[2000];
+
+        for (int i = 0; i < tokens.length; i++)
+            tokens[i] = random.nextInt(300);
+
+        MultiWindowGraph.Cursor cursor = MultiWindowGraph.build(tokens, 300, 10).cursor();
+
+        // 逐个增大、一次跨过几个距离、窗口变小后从头开始
+        for (int w : new int[]{2, 3, 4, 7, 8, 10, 3, 6}) {
+            WordGraph expect = WordGraph.build(tokens, 300, w), actual = cursor.next(w);
+            assertEquals(expect.getEdgeCount(), actual.getEdgeCount());
+
+            for (int v = 0; v < 300; v++)
+                assertArrayEquals(expect.neighbors(v), actual.neighbors(v));
+        }
+    }
+}